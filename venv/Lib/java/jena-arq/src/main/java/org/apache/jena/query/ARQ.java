@@ -327,7 +327,7 @@ public class ARQ
      * choosing the value.
      * <p>
      * Operations currently affected by this symbol: <br>
-     * ORDER BY, SPARQL Update, CONSTRUCT (optionally)
+     * ORDER BY, GROUP BY, hash joins and hash left joins, SPARQL Update, CONSTRUCT (optionally)
      * <p>
      * A reasonable value here is 10000.
      * </p>
@@ -335,7 +335,7 @@ public class ARQ
      */
     // Some possible additions to the list:
     // Sort: DISTINCT, merge joins<br>
-    // Hash table: GROUP BY, MINUS, SERVICE, VALUES, and hash joins <br>
+    // Hash table: MINUS, SERVICE, VALUES <br>
     public static final Symbol spillToDiskThreshold = SystemARQ.allocSymbol("spillToDiskThreshold");
 
     // Optimizer controls.
@@ -379,6 +379,24 @@ public class ARQ
      */
     public static final Symbol optPathFlattenAlgebra = SystemARQ.allocSymbol("optPathFlattenAlgebra");
 
+    /**
+     * Context key controlling whether {@code :p+} and {@code :p*}, where {@code :p} is a single property,
+     * are evaluated over integer ids with bitmaps for the sets of nodes. When both ends of such a path
+     * are unbound, the links of the property are read once and the transitive closures are shared
+     * between subjects.
+     * <p>Default is {@code false}</p>
+     * @see org.apache.jena.sparql.path.eval.PathEvalBitmap
+     */
+    public static final Symbol pathEvalBitmap = SystemARQ.allocSymbol("pathEvalBitmap");
+
+    /**
+     * Context key for a {@link org.apache.jena.sparql.path.eval.PathClosureCache} that keeps the
+     * closures calculated by {@link #pathEvalBitmap} path evaluation between query executions.
+     * The closures of graphs that are views of a dataset, such as TDB2 graphs, are not kept.
+     * <p>Default is no cache.</p>
+     */
+    public static final Symbol pathClosureCache = SystemARQ.allocSymbol("pathClosureCache");
+
     /**
      *  Context key controlling whether the main query engine moves filters to the "best" place.
      *  Default is "true" - filter placement is done.
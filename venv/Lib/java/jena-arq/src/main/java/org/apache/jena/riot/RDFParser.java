@@ -33,6 +33,7 @@ import java.nio.file.Path;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
 
 import org.apache.jena.atlas.io.IO;
 import org.apache.jena.atlas.lib.InternalErrorException;
@@ -42,6 +43,8 @@ import org.apache.jena.graph.Graph;
 import org.apache.jena.http.HttpLib;
 import org.apache.jena.irix.IRIs;
 import org.apache.jena.irix.IRIxResolver;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.lang.ParallelParserNTuples;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.query.DatasetFactory;
 import org.apache.jena.rdf.model.Model;
@@ -109,6 +112,8 @@ public class RDFParser {
     private final FactoryRDF          factory;
     private final ErrorHandler        errorHandler;
     private final Context             context;
+    private final int                 parallelism;
+    private final boolean             parallelOrdered;
     // Some cases the parser is reusable (read a file), some are not (input streams).
     private boolean                 canUseThisParser = true;
 
@@ -203,7 +208,8 @@ public class RDFParser {
                             String parserBaseURI, boolean strict, Optional<Boolean> checking,
                             boolean canonicalLexicalValues, LangTagForm langTagForm,
                             boolean resolveURIs, IRIxResolver resolver, PrefixMap prefixMap,
-                            FactoryRDF factory, ErrorHandler errorHandler, Context context) {
+                            FactoryRDF factory, ErrorHandler errorHandler, Context context,
+                            int parallelism, boolean parallelOrdered) {
         int x = countNonNull(uri, path, content, inputStream, javaReader);
         if ( x >= 2 )
             throw new IllegalArgumentException("Only one source allowed: one of uri, path, content, inputStream and javaReader must be set");
@@ -235,6 +241,8 @@ public class RDFParser {
         this.factory = factory;
         this.errorHandler = errorHandler;
         this.context = context;
+        this.parallelism = parallelism;
+        this.parallelOrdered = parallelOrdered;
     }
 
     /** Count the nulls */
@@ -434,8 +442,29 @@ public class RDFParser {
         read(readerRiot, inputStream, jr, baseURI, context, ct, destination);
     }
 
+    /**
+     * Parse N-Triples and N-Quads from an InputStream in parallel, if requested,
+     * otherwise call the RIOT reader.
+     */
+    private void read(ReaderRIOT readerRiot, InputStream inputStream, Reader javaReader,
+                      String baseUri, Context context,
+                      ContentType ct, StreamRDF destination) {
+        if ( parallelism > 1 && inputStream != null ) {
+            Lang lang = RDFLanguages.contentTypeToLang(ct);
+            if ( ParallelParserNTuples.canParse(lang) ) {
+                // Blank node labels are scoped to the whole input, across chunks.
+                UUID seed = UUID.randomUUID();
+                ParallelParserNTuples.parse(inputStream, lang, parallelism, parallelOrdered, errorHandler,
+                                            eh -> makeParserProfile(lang, RiotLib.factoryRDF(LabelToNode.createScopeByDocumentHash(seed)), eh),
+                                            destination);
+                return;
+            }
+        }
+        readRIOT(readerRiot, inputStream, javaReader, baseUri, context, ct, destination);
+    }
+
     /** Call the RIOT reader, from either an InputStream or a Reader */
-    private static void read(ReaderRIOT readerRiot, InputStream inputStream, Reader javaReader,
+    private static void readRIOT(ReaderRIOT readerRiot, InputStream inputStream, Reader javaReader,
                              String baseUri, Context context,
                              ContentType ct, StreamRDF destination) {
         if ( inputStream != null && javaReader != null )
@@ -517,6 +546,10 @@ public class RDFParser {
 
     // See also RiotLib.profile but this version has RDFParser specific features.
     private ParserProfile makeParserProfile(Lang lang) {
+        return makeParserProfile(lang, factory, errorHandler);
+    }
+
+    private ParserProfile makeParserProfile(Lang lang, FactoryRDF factory, ErrorHandler errorHandler) {
         boolean resolve = resolveURIs;
         boolean allowRelative = false;
         boolean checking$ = strict;
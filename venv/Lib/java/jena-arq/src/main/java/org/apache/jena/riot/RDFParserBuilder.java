@@ -107,6 +107,10 @@ public class RDFParserBuilder {
     // Bad news.
     private ErrorHandler errorHandler = null;
 
+    // Parallel parsing of N-Triples and N-Quads.
+    private int parallelism = 1;
+    private boolean parallelOrdered = true;
+
     public static RDFParserBuilder create() { return new RDFParserBuilder() ; }
     private RDFParserBuilder() {}
 
@@ -487,6 +491,48 @@ public class RDFParserBuilder {
         return this;
     }
 
+    /**
+     * Parse N-Triples and N-Quads using several threads.
+     * The output is in the same order as the input.
+     * @see #parallel(int, boolean)
+     * @param threads Number of threads, 1 for no parallel parsing.
+     * @return this
+     */
+    public RDFParserBuilder parallel(int threads) {
+        return parallel(threads, true);
+    }
+
+    /**
+     * Parse N-Triples and N-Quads using several threads.
+     * <p>
+     * The input is split into chunks at line boundaries and the chunks are parsed
+     * in parallel. The destination {@link StreamRDF} is called from the thread calling
+     * the parser, with the triples or quads for a chunk in one batch. If
+     * {@code ordered} is false, batches are sent as chunks finish parsing, and the
+     * output is not necessarily in the same order as the input.
+     * <p>
+     * Blank node labels are scoped to the whole input as usual.
+     * <p>
+     * The {@link #errorHandler error handler} is called from the parser threads.
+     * Calls are made one at a time, but not necessarily from the same thread, and
+     * errors are not necessarily reported in the order of the input.
+     * <p>
+     * This only applies to N-Triples and N-Quads read from a file, a URL or an
+     * {@code InputStream}, and when neither {@link #factory} nor {@link #labelToNode}
+     * is set. Other syntaxes, such as Turtle, where the meaning of a line depends
+     * on the lines before it, are parsed as usual.
+     * @param threads Number of threads, 1 for no parallel parsing.
+     * @param ordered Whether the output is in the same order as the input.
+     * @return this
+     */
+    public RDFParserBuilder parallel(int threads, boolean ordered) {
+        if ( threads < 1 )
+            throw new IllegalArgumentException("Number of threads must be one or more: " + threads);
+        this.parallelism = threads;
+        this.parallelOrdered = ordered;
+        return this;
+    }
+
     // There are no strict/unstrict differences.
     // Strict is passed through to the RIOT reader.
 //    /**
@@ -670,6 +716,9 @@ public class RDFParserBuilder {
         if ( sMgr == null )
             sMgr = StreamManager.get(context);
 
+        // Parallel parsing creates a FactoryRDF for each chunk.
+        int parallelism$ = ( factory == null && labelToNode == null ) ? parallelism : 1;
+
         // Can't build the profile here as it is Lang/conneg dependent.
         return new RDFParser(uri, path, stringToParse, inputStream, javaReader, sMgr,
                              appAcceptHeader, httpHeaders,
@@ -678,7 +727,8 @@ public class RDFParserBuilder {
                              parserBaseURI, strict, checking,
                              canonicalValues, langTagForm,
                              resolveURIs, resolver, prefixMap,
-                             factory$, errorHandler$, context);
+                             factory$, errorHandler$, context,
+                             parallelism$, parallelOrdered);
     }
 
     private FactoryRDF buildFactoryRDF() {
@@ -718,6 +768,8 @@ public class RDFParserBuilder {
         builder.factory =           this.factory;
         builder.labelToNode =       this.labelToNode;
         builder.errorHandler =      this.errorHandler;
+        builder.parallelism =       this.parallelism;
+        builder.parallelOrdered =   this.parallelOrdered;
         return builder;
     }
 }
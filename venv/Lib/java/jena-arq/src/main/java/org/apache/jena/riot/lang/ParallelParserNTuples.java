@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.ErrorHandler;
+import org.apache.jena.riot.system.ParserProfile;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.tokens.Tokenizer;
+import org.apache.jena.riot.tokens.TokenizerText;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Parse N-Triples or N-Quads using several threads.
+ * <p>
+ * The input is split into chunks at line boundaries and each chunk is parsed on a
+ * worker thread with its own {@link ParserProfile}. The output of a chunk is sent to
+ * the destination {@link StreamRDF} as one batch, on the calling thread, so the
+ * destination does not need to be thread-safe. Batches are sent either in the order
+ * of the input or in the order the chunks finish parsing.
+ * <p>
+ * Blank node labels are scoped to the whole input. The caller supplies parser
+ * profiles that map the same label to the same blank node in every chunk, for
+ * example by using {@link LabelToNode#createScopeByDocumentHash(UUID)} with a
+ * seed shared by all the chunks.
+ * <p>
+ * Line numbers in error messages are for the whole input. The error handler is
+ * called from the worker threads, one call at a time.
+ */
+public class ParallelParserNTuples {
+    /** Default size, in bytes, of a chunk of input. */
+    public static final int DftChunkSize = 4 * 1024 * 1024;
+
+    private final Lang lang;
+    private final int parallelism;
+    private final boolean ordered;
+    private final int chunkSize;
+    private final ErrorHandler errorHandler;
+    private final Function<ErrorHandler, ParserProfile> profileMaker;
+
+    // Input splitting.
+    private byte[] carry = new byte[0];
+    private int carryLength = 0;
+    private boolean eof = false;
+    private long line = 1;
+
+    private static final class Chunk {
+        final byte[] bytes;
+        final int length;
+        final long firstLine;
+
+        Chunk(byte[] bytes, int length, long firstLine) {
+            this.bytes = bytes;
+            this.length = length;
+            this.firstLine = firstLine;
+        }
+    }
+
+    /**
+     * Parse N-Triples or N-Quads from an {@link InputStream}.
+     *
+     * @param input The input, which is not closed.
+     * @param lang {@link Lang#NTRIPLES} or {@link Lang#NQUADS}.
+     * @param parallelism Number of worker threads.
+     * @param ordered Whether the output is in the same order as the input.
+     * @param errorHandler The error handler: line numbers are adjusted to the position in the input.
+     * @param profileMaker Create a parser profile for a chunk, given its error handler.
+     * @param destination The output.
+     */
+    public static void parse(InputStream input, Lang lang, int parallelism, boolean ordered,
+                             ErrorHandler errorHandler, Function<ErrorHandler, ParserProfile> profileMaker,
+                             StreamRDF destination) {
+        new ParallelParserNTuples(lang, parallelism, ordered, DftChunkSize, errorHandler, profileMaker).parse(input, destination);
+    }
+
+    /** Whether a language can be parsed by this parser. */
+    public static boolean canParse(Lang lang) {
+        return RDFLanguages.sameLang(Lang.NTRIPLES, lang) || RDFLanguages.sameLang(Lang.NQUADS, lang);
+    }
+
+    /*package*/ ParallelParserNTuples(Lang lang, int parallelism, boolean ordered, int chunkSize,
+                                      ErrorHandler errorHandler, Function<ErrorHandler, ParserProfile> profileMaker) {
+        if ( ! canParse(lang) )
+            throw new RiotException("Not N-Triples or N-Quads: " + lang);
+        if ( parallelism < 1 )
+            throw new IllegalArgumentException("Parallelism must be one or more: " + parallelism);
+        this.lang = lang;
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+        this.chunkSize = chunkSize;
+        this.errorHandler = errorHandler;
+        this.profileMaker = profileMaker;
+    }
+
+    /*package*/ void parse(InputStream input, StreamRDF destination) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "Parser-" + lang.getLabel() + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Bound the number of chunks in memory.
+        int maxPending = 2 * parallelism;
+        Deque<Future<CollectorStreamBase<?>>> pending = new ArrayDeque<>();
+        // Unordered: take chunks as they finish.
+        CompletionService<CollectorStreamBase<?>> completed = ordered ? null : new ExecutorCompletionService<>(executor);
+        destination.start();
+        try {
+            for (;;) {
+                Chunk chunk = nextChunk(input);
+                if ( chunk == null )
+                    break;
+                Callable<CollectorStreamBase<?>> task = ()->parseChunk(chunk);
+                pending.add(ordered ? executor.submit(task) : completed.submit(task));
+                if ( pending.size() >= maxPending )
+                    output(nextResult(pending, completed), destination);
+            }
+            while ( ! pending.isEmpty() )
+                output(nextResult(pending, completed), destination);
+        } catch (IOException ex) {
+            IO.exception(ex);
+        } finally {
+            executor.shutdownNow();
+            destination.finish();
+        }
+    }
+
+    private CollectorStreamBase<?> nextResult(Deque<Future<CollectorStreamBase<?>>> pending,
+                                              CompletionService<CollectorStreamBase<?>> completed) {
+        try {
+            Future<CollectorStreamBase<?>> future;
+            if ( completed == null )
+                future = pending.removeFirst();
+            else {
+                future = completed.take();
+                pending.remove(future);
+            }
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RiotException("Interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if ( cause instanceof RuntimeException runtimeException )
+                throw runtimeException;
+            if ( cause instanceof Error error )
+                throw error;
+            throw new RiotException(cause);
+        }
+    }
+
+    private void output(CollectorStreamBase<?> output, StreamRDF destination) {
+        if ( output instanceof CollectorStreamTriples triples ) {
+            for ( Triple triple : triples.getCollected() )
+                destination.triple(triple);
+        } else if ( output instanceof CollectorStreamQuads quads ) {
+            for ( Quad quad : quads.getCollected() )
+                destination.quad(quad);
+        }
+    }
+
+    private CollectorStreamBase<?> parseChunk(Chunk chunk) {
+        ErrorHandler chunkErrorHandler = new ErrorHandlerLineOffset(errorHandler, chunk.firstLine - 1);
+        ParserProfile profile = profileMaker.apply(chunkErrorHandler);
+        InputStream in = new ByteArrayInputStream(chunk.bytes, 0, chunk.length);
+        Tokenizer tokenizer = TokenizerText.create().source(in).errorHandler(chunkErrorHandler).build();
+        if ( RDFLanguages.sameLang(Lang.NTRIPLES, lang) ) {
+            CollectorStreamTriples output = new CollectorStreamTriples();
+            new LangNTriples(tokenizer, profile, output).parse();
+            return output;
+        }
+        CollectorStreamQuads output = new CollectorStreamQuads();
+        new LangNQuads(tokenizer, profile, output).parse();
+        return output;
+    }
+
+    /**
+     * The next chunk of input, ending at a newline unless it is the end of the
+     * input. Returns null when there is no more input.
+     */
+    private Chunk nextChunk(InputStream input) throws IOException {
+        byte[] buffer = new byte[Math.max(chunkSize, 2 * carryLength)];
+        System.arraycopy(carry, 0, buffer, 0, carryLength);
+        int length = carryLength;
+        carryLength = 0;
+        for (;;) {
+            while ( ! eof && length < buffer.length ) {
+                int n = input.read(buffer, length, buffer.length - length);
+                if ( n < 0 )
+                    eof = true;
+                else
+                    length += n;
+            }
+            if ( eof ) {
+                if ( length == 0 )
+                    return null;
+                return chunk(buffer, length);
+            }
+            // Split after the last newline. In UTF-8, the byte for newline does
+            // not occur in the encoding of any other character.
+            int idx = length - 1;
+            while ( idx >= 0 && buffer[idx] != '\n' )
+                idx--;
+            if ( idx >= 0 ) {
+                int end = idx + 1;
+                carryLength = length - end;
+                if ( carry.length < carryLength )
+                    carry = new byte[Math.max(carryLength, 1024)];
+                System.arraycopy(buffer, end, carry, 0, carryLength);
+                return chunk(buffer, end);
+            }
+            // No newline - a line longer than the buffer.
+            buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+        }
+    }
+
+    private Chunk chunk(byte[] buffer, int length) {
+        Chunk chunk = new Chunk(buffer, length, line);
+        for ( int i = 0 ; i < length ; i++ ) {
+            if ( buffer[i] == '\n' )
+                line++;
+        }
+        return chunk;
+    }
+
+    /**
+     * Adjust line numbers from the start of a chunk to the start of the input.
+     * Calls to the error handler, which is shared by all chunks, are serialized.
+     */
+    private static class ErrorHandlerLineOffset implements ErrorHandler {
+        private final ErrorHandler other;
+        private final long offset;
+
+        ErrorHandlerLineOffset(ErrorHandler other, long offset) {
+            this.other = other;
+            this.offset = offset;
+        }
+
+        private long line(long line) {
+            return line > 0 ? line + offset : line;
+        }
+
+        @Override
+        public void warning(String message, long line, long col) {
+            synchronized(other) {
+                other.warning(message, line(line), col);
+            }
+        }
+
+        @Override
+        public void error(String message, long line, long col) {
+            synchronized(other) {
+                other.error(message, line(line), col);
+            }
+        }
+
+        @Override
+        public void fatal(String message, long line, long col) {
+            synchronized(other) {
+                other.fatal(message, line(line), col);
+            }
+        }
+    }
+}
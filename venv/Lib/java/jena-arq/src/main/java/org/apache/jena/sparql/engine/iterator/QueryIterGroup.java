@@ -18,17 +18,21 @@
 
 package org.apache.jena.sparql.engine.iterator;
 
-import java.util.ArrayList ;
-import java.util.Collection ;
-import java.util.Iterator ;
-import java.util.List ;
+import java.util.*;
 
 import org.apache.commons.collections4.MultiMapUtils;
 import org.apache.commons.collections4.MultiValuedMap;
+import org.apache.jena.atlas.data.BagFactory;
+import org.apache.jena.atlas.data.SortedDataBag;
+import org.apache.jena.atlas.data.ThresholdPolicy;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory;
 import org.apache.jena.atlas.iterator.Iter ;
 import org.apache.jena.atlas.iterator.IteratorDelayedInitialization ;
+import org.apache.jena.atlas.iterator.PeekIterator;
 import org.apache.jena.atlas.lib.Pair ;
 import org.apache.jena.graph.Node ;
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.sparql.ARQConstants;
 import org.apache.jena.sparql.core.Var ;
 import org.apache.jena.sparql.core.VarExprList ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
@@ -39,30 +43,60 @@ import org.apache.jena.sparql.engine.binding.BindingFactory ;
 import org.apache.jena.sparql.expr.ExprAggregator ;
 import org.apache.jena.sparql.expr.NodeValue ;
 import org.apache.jena.sparql.expr.aggregate.Accumulator ;
+import org.apache.jena.sparql.system.SerializationFactoryFinder;
+import org.apache.jena.sparql.util.NodeCmp;
 
+/**
+ * Grouping and aggregation.
+ * <p>
+ * Normally, the groups and their accumulators are held in memory. If
+ * {@link org.apache.jena.query.ARQ#spillToDiskThreshold} is set, and there is a
+ * GROUP BY, the input is sorted by group key, spilling to disk as needed,
+ * and the groups are then calculated one at a time from the sorted rows.
+ * The group key is calculated once per row and kept with the row, in
+ * internal variables, while sorting.
+ *
+ * @see SortedDataBag
+ */
 public class QueryIterGroup extends QueryIterPlainWrapper
 {
 	private final QueryIterator embeddedIterator;
+	// Only when spilling.
+	/*package*/ final SortedDataBag<Binding> db;
 
 	public QueryIterGroup(QueryIterator qIter,
                           VarExprList groupVars,
                           List<ExprAggregator> aggregators,
                           ExecutionContext execCxt) {
-	    // Delayed initalization
-	    // Does the group calculation when first used (typically hasNext)
-        super(calc(qIter, groupVars, aggregators, execCxt),
-              execCxt);
+        super(null, execCxt);
         this.embeddedIterator = qIter;
+        ThresholdPolicy<Binding> policy = ThresholdPolicyFactory.policyFromContext(execCxt.getContext());
+        // Without GROUP BY, there is only ever one group.
+        if ( groupVars.isEmpty() || policy == ThresholdPolicyFactory.<Binding>never() ) {
+            this.db = null;
+            // Delayed initalization
+            // Does the group calculation when first used (typically hasNext)
+            setIterator(calc(qIter, groupVars, aggregators, execCxt));
+        } else {
+            List<Var> keyVars = keyVars(groupVars);
+            Comparator<Binding> comparator = (b1, b2) -> compareKeys(keyVars, b1, b2);
+            this.db = BagFactory.newSortedBag(policy, SerializationFactoryFinder.bindingSerializationFactory(), comparator);
+            setIterator(calcSorted(db, qIter, groupVars, keyVars, aggregators, execCxt));
+        }
     }
 
     @Override
     public void requestCancel() {
+        if ( db != null )
+            this.db.cancel();
         this.embeddedIterator.cancel();
         super.requestCancel();
     }
 
     @Override
     protected void closeIterator() {
+        if ( db != null )
+            this.db.close();
         this.embeddedIterator.close();
         super.closeIterator();
     }
@@ -140,24 +174,139 @@ public class QueryIterGroup extends QueryIterPlainWrapper
                     return accumulators.keySet().iterator();
 
                 List<Binding> results = new ArrayList<>();
-                for ( Binding k : accumulators.keySet() ) {
-                    BindingBuilder builder2 = Binding.builder(k);
-                    Collection<Pair<Var, Accumulator>> accs = accumulators.get(k);
+                for ( Binding k : accumulators.keySet() )
+                    results.add(result(k, accumulators.get(k)));
+                return results.iterator();
+            }
+        };
+    }
 
-                    for ( Pair<Var, Accumulator> pair : accs ) {
-                        NodeValue value = pair.getRight().getValue();
-                        if ( value == null )
-                            continue;
-                        Var v = pair.getLeft();
-                        builder2.add(v, value.asNode());
-                    }
-                    results.add(builder2.build());
+    /**
+     * Grouping by sorting on the group key. The rows of a group are then adjacent
+     * so only one group at a time needs accumulators.
+     */
+    private static Iterator<Binding> calcSorted(final SortedDataBag<Binding> db,
+                                                final QueryIterator iter,
+                                                final VarExprList groupVarExpr,
+                                                final List<Var> keyVars,
+                                                final List<ExprAggregator> aggregators,
+                                                final ExecutionContext execCxt) {
+        return new IteratorDelayedInitialization<Binding>() {
+            @Override
+            protected Iterator<Binding> initializeIterator() {
+                // There is a GROUP BY so no input means no rows.
+                try {
+                    db.addAll(Iter.map(iter, b -> addKey(groupVarExpr, keyVars, b, execCxt)));
+                } catch (QueryCancelledException e) {
+                    db.close();
+                    throw e;
                 }
-                return results.iterator();
+                PeekIterator<Binding> rows = PeekIterator.create(db.iterator());
+                boolean hasAggregators = ( aggregators != null && ! aggregators.isEmpty() );
+
+                return new Iterator<Binding>() {
+                    @Override
+                    public boolean hasNext() {
+                        return rows.hasNext();
+                    }
+
+                    @Override
+                    public Binding next() {
+                        if ( ! rows.hasNext() )
+                            throw new NoSuchElementException();
+                        Binding first = rows.next();
+                        Binding key = getKey(groupVarExpr, keyVars, first);
+                        if ( ! hasAggregators ) {
+                            while ( rows.hasNext() && compareKeys(keyVars, first, rows.peek()) == 0 )
+                                rows.next();
+                            return key;
+                        }
+                        List<Pair<Var, Accumulator>> accs = new ArrayList<>(aggregators.size());
+                        for ( ExprAggregator agg : aggregators )
+                            accs.add(Pair.create(agg.getVar(), agg.getAggregator().createAccumulator()));
+                        accumulate(accs, removeKey(keyVars, first), execCxt);
+                        while ( rows.hasNext() && compareKeys(keyVars, first, rows.peek()) == 0 )
+                            accumulate(accs, removeKey(keyVars, rows.next()), execCxt);
+                        return result(key, accs);
+                    }
+                };
             }
         };
     }
 
+    private static void accumulate(List<Pair<Var, Accumulator>> accs, Binding binding, ExecutionContext execCxt) {
+        for ( Pair<Var, Accumulator> pair : accs )
+            pair.getRight().accumulate(binding, execCxt);
+    }
+
+    private static Binding result(Binding key, Collection<Pair<Var, Accumulator>> accs) {
+        BindingBuilder builder = Binding.builder(key);
+        for ( Pair<Var, Accumulator> pair : accs ) {
+            NodeValue value = pair.getRight().getValue();
+            if ( value == null )
+                continue;
+            Var v = pair.getLeft();
+            builder.add(v, value.asNode());
+        }
+        return builder.build();
+    }
+
+    /** Internal variables for the values of the group key while sorting. */
+    private static List<Var> keyVars(VarExprList groupVars) {
+        List<Var> keyVars = new ArrayList<>(groupVars.size());
+        for ( int i = 0 ; i < groupVars.size() ; i++ )
+            keyVars.add(Var.alloc(ARQConstants.allocVarMarker+"group"+i));
+        return keyVars;
+    }
+
+    /** Evaluate the group key and add it to the binding. */
+    private static Binding addKey(VarExprList groupVars, List<Var> keyVars, Binding binding, ExecutionContext execCxt) {
+        BindingBuilder builder = Binding.builder(binding);
+        List<Var> vars = groupVars.getVars();
+        for ( int i = 0 ; i < vars.size() ; i++ ) {
+            Node node = groupVars.get(vars.get(i), binding, execCxt);
+            // Null returned for unbound and error.
+            if ( node != null )
+                builder.add(keyVars.get(i), node);
+        }
+        return builder.build();
+    }
+
+    /** The group key, from the values added by {@link #addKey}. */
+    private static Binding getKey(VarExprList groupVars, List<Var> keyVars, Binding binding) {
+        BindingBuilder builder = Binding.builder();
+        List<Var> vars = groupVars.getVars();
+        for ( int i = 0 ; i < vars.size() ; i++ ) {
+            Node node = binding.get(keyVars.get(i));
+            if ( node != null )
+                builder.add(vars.get(i), node);
+        }
+        return builder.build();
+    }
+
+    /** The original row, without the values added by {@link #addKey}. */
+    private static Binding removeKey(List<Var> keyVars, Binding binding) {
+        BindingBuilder builder = Binding.builder();
+        binding.forEach((var, node) -> {
+            if ( ! keyVars.contains(var) )
+                builder.add(var, node);
+        });
+        return builder.build();
+    }
+
+    /**
+     * Compare the group keys of two bindings. This is a total ordering on RDF
+     * terms so only rows with the same group key compare as equal.
+     */
+    private static int compareKeys(List<Var> keyVars, Binding binding1, Binding binding2) {
+        for ( Var var : keyVars ) {
+            int x = NodeCmp.compareRDFTerms(binding1.get(var), binding2.get(var));
+            if ( x != 0 )
+                return x;
+        }
+        return 0;
+    }
+
     static private Binding genKey(VarExprList vars, Binding binding, ExecutionContext execCxt) {
         return copyProject(vars, binding, execCxt);
     }
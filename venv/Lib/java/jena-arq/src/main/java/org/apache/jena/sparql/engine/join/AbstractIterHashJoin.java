@@ -18,10 +18,15 @@
 
 package org.apache.jena.sparql.engine.join;
 
+import java.util.ArrayDeque ;
+import java.util.ArrayList ;
+import java.util.Deque ;
 import java.util.Iterator ;
 import java.util.List ;
+import java.util.function.Supplier ;
 
 import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.query.ARQ ;
 import org.apache.jena.sparql.algebra.Algebra ;
 import org.apache.jena.sparql.core.Var ;
 import org.apache.jena.sparql.engine.ExecutionContext ;
@@ -34,6 +39,22 @@ import org.apache.jena.sparql.engine.iterator.QueryIterPeek ;
  *  
  * This code materializes one input into the probe table
  * then hash joins the other input from the stream side.
+ * <p>
+ * If {@link ARQ#spillToDiskThreshold} is set, this is a hybrid hash join.
+ * The probe table rows are split into partitions by the hash of the join key.
+ * When the number of rows in memory exceeds the threshold, the largest
+ * partition is written to disk, and further probe rows for that partition go
+ * to disk as well. Stream rows for a partition on disk are also written to disk,
+ * and, after the main stream, each such partition is read back and joined in turn.
+ * A partition on disk that is itself over the threshold is split again, with a
+ * different hash, before it is read back.
+ * <p>
+ * Probe rows without the join key match any stream row. They are counted towards
+ * the threshold and, if moved to disk, are read back for each block of stream rows.
+ * <p>
+ * Stream rows that need probe rows on disk, other than those of their own
+ * partition, are joined in blocks: the rows on disk are read once for each block
+ * (block nested loop).
  */
 
 public abstract class AbstractIterHashJoin extends QueryIter2 {
@@ -41,6 +62,9 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
     protected long s_countScan            = 0 ;       // Count of the scan data size
     protected long s_countResults         = 0 ;       // Overall result size.
     protected long s_trailerResults       = 0 ;       // Results from the trailer iterator.
+    protected long s_partitionsSpilled    = 0 ;       // Probe table partitions moved to disk.
+    protected long s_bytesSpilled         = 0 ;       // Bytes written to disk.
+    protected long s_diskPasses           = 0 ;       // Reads of probe rows on disk for a block of stream rows.
     // See also stats in the probe table.
     
     protected final JoinKey               joinKey ;
@@ -52,13 +76,49 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
     private boolean                     yielded ;       // Flag to note when current probe causes a result. 
     // Hanlde any "post join" additions.
     private Iterator<Binding>           iterTail        = null ;
-    
+
+    // Hybrid hash join. The arrays are null when there is no spilling.
+    private static final int            PARTITIONS      = 16 ;
+    // Partitions are split again, up to this depth, if too large to read back.
+    private static final int            MAX_LEVELS      = 4 ;
+    private final long                  threshold ;
+    private long                        inMemoryCount   = 0 ;   // Rows in the hash table.
+    private final long[]                partitionCounts ;
+    private long                        noKeyCount      = 0 ;   // Rows, without a join key, in the hash table.
+    private final SpilledPartition[]    spilled ;
+    // Probe rows without the join key, when moved to disk.
+    private PartitionBag                spilledProbeNoKey = null ;
+    // Stream rows without the join key, when there are partitions on disk.
+    private PartitionBag                spilledNoKey    = null ;
+    // Processing partitions from disk.
+    private Deque<SpilledPartition>     pending         = null ;
+    private SpilledPartition            currentPartition = null ;
+    private HashProbeTable              currentTable    = null ;
+    private Iterator<Binding>           iterSpilled     = null ;
+    // Block nested loop join of stream rows with probe rows on disk.
+    private static final int            MIN_BLOCK_SIZE  = 1000 ;
+    private final int                   blockSize ;
+    private List<Binding>               block           = null ;
+    private boolean[]                   blockYielded ;
+    private int                         blockIdx ;
+    private Iterator<Binding>           iterBlockProbe  = null ;
+    private Binding                     rowBlockProbe   = null ;
+    private boolean                     blockDiskPass ;
+
     enum Phase { INIT, HASH , STREAM, TRAILER, DONE }
     Phase state = Phase.INIT ;
     
     private Binding slot = null ;
 
     protected AbstractIterHashJoin(JoinKey joinKey, QueryIterator probeIter, QueryIterator streamIter, ExecutionContext execCxt) {
+        this(joinKey, probeIter, streamIter, true, execCxt) ;
+    }
+
+    /**
+     * Create a hash join. If {@code spillable} is false, the probe table is
+     * always in memory, regardless of {@link ARQ#spillToDiskThreshold}.
+     */
+    protected AbstractIterHashJoin(JoinKey joinKey, QueryIterator probeIter, QueryIterator streamIter, boolean spillable, ExecutionContext execCxt) {
         super(probeIter, streamIter, execCxt) ;
         
         if ( joinKey == null ) {
@@ -79,21 +139,395 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
         this.iterStream = streamIter ;
         this.hashTable = new HashProbeTable(joinKey) ;
         this.iterCurrent = null ;
+        this.threshold = spillable ? spillThreshold(execCxt) : -1 ;
+        this.blockSize = (int)Math.min(Math.max(threshold, MIN_BLOCK_SIZE), Integer.MAX_VALUE) ;
+        if ( threshold >= 0 ) {
+            this.partitionCounts = new long[PARTITIONS] ;
+            this.spilled = new SpilledPartition[PARTITIONS] ;
+        } else {
+            this.partitionCounts = null ;
+            this.spilled = null ;
+        }
         buildHashTable(probeIter) ;
         
     }
+
+    private static long spillThreshold(ExecutionContext execCxt) {
+        if ( execCxt == null || execCxt.getContext() == null )
+            return -1 ;
+        return execCxt.getContext().getLong(ARQ.spillToDiskThreshold, -1) ;
+    }
         
     private void buildHashTable(QueryIterator iter1) {
         state = Phase.HASH ;
         for (; iter1.hasNext();) {
             Binding row1 = iter1.next() ;
             s_countProbe ++ ;
-            hashTable.put(row1) ;
+            if ( spilled == null )
+                hashTable.put(row1) ;
+            else
+                putProbeRow(row1) ;
         }
         iter1.close() ;
         state = Phase.STREAM ;
     }
 
+    /** The partition for a hash, with a different mixing of the hash at each level. */
+    private static int partition(Object hash, int level) {
+        long h = (Long)hash + level * 0x9E3779B97F4A7C15L ;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL ;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L ;
+        h = h ^ (h >>> 33) ;
+        return (int)(h >>> 60) ;
+    }
+
+    private void putProbeRow(Binding row) {
+        Object hash = JoinLib.hash(joinKey, row) ;
+        if ( hash == JoinLib.noKeyHash ) {
+            if ( spilledProbeNoKey != null ) {
+                spilledProbeNoKey.add(row) ;
+                return ;
+            }
+            noKeyCount++ ;
+        } else {
+            int p = partition(hash, 0) ;
+            if ( spilled[p] != null ) {
+                spilled[p].addProbe(row) ;
+                return ;
+            }
+            partitionCounts[p]++ ;
+        }
+        hashTable.put(row) ;
+        inMemoryCount++ ;
+        if ( inMemoryCount > threshold )
+            spillPartition() ;
+    }
+
+    /** Move the largest partition in memory, or the rows without the join key, to disk. */
+    private void spillPartition() {
+        int victim = -1 ;
+        for ( int i = 0 ; i < PARTITIONS ; i++ ) {
+            if ( spilled[i] == null && partitionCounts[i] > 0 ) {
+                if ( victim < 0 || partitionCounts[i] > partitionCounts[victim] )
+                    victim = i ;
+            }
+        }
+        if ( noKeyCount > 0 && ( victim < 0 || noKeyCount > partitionCounts[victim] ) ) {
+            spilledProbeNoKey = new PartitionBag() ;
+            for ( Binding b : hashTable.removeNoKey() )
+                spilledProbeNoKey.add(b) ;
+            inMemoryCount -= noKeyCount ;
+            noKeyCount = 0 ;
+            s_partitionsSpilled++ ;
+            return ;
+        }
+        if ( victim < 0 )
+            return ;
+        final int p = victim ;
+        SpilledPartition part = new SpilledPartition(0) ;
+        for ( Binding b : hashTable.remove(key->partition(key, 0) == p) )
+            part.addProbe(b) ;
+        spilled[p] = part ;
+        inMemoryCount -= partitionCounts[p] ;
+        partitionCounts[p] = 0 ;
+        s_partitionsSpilled++ ;
+    }
+
+    /** Send a stream row to disk if it needs a partition that is on disk. */
+    private boolean spillStreamRow(Binding row) {
+        if ( s_partitionsSpilled == 0 )
+            return false ;
+        Object hash = JoinLib.hash(joinKey, row) ;
+        if ( hash == JoinLib.noKeyHash ) {
+            // Can match rows in any partition.
+            if ( spilledNoKey == null )
+                spilledNoKey = new PartitionBag() ;
+            spilledNoKey.add(row) ;
+            return true ;
+        }
+        int p = partition(hash, 0) ;
+        if ( spilled[p] == null )
+            return false ;
+        spilled[p].stream.add(row) ;
+        return true ;
+    }
+
+    /**
+     * Move to the next stream row, setting {@code rowStream} and {@code iterCurrent},
+     * or, if the stream rows need probe rows on disk, to the next {@code block}.
+     * Stream rows come from the stream input then from the partitions on disk.
+     */
+    private boolean nextStreamRow() {
+        Binding row = nextStreamInput() ;
+        if ( row != null ) {
+            if ( spilledProbeNoKey != null ) {
+                startBlock(row, this::nextStreamInput) ;
+                return true ;
+            }
+            rowStream = row ;
+            iterCurrent = hashTable.getCandidates(rowStream) ;
+            return true ;
+        }
+        if ( s_partitionsSpilled == 0 )
+            return false ;
+        for(;;) {
+            if ( iterSpilled != null && iterSpilled.hasNext() ) {
+                row = iterSpilled.next() ;
+                // Stream rows without the join key need all the probe rows on disk.
+                if ( spilledProbeNoKey != null || currentPartition == null ) {
+                    startBlock(row, ()->iterSpilled.hasNext() ? iterSpilled.next() : null) ;
+                    return true ;
+                }
+                rowStream = row ;
+                iterCurrent = memoryProbeRows(rowStream) ;
+                return true ;
+            }
+            if ( ! nextPartition() )
+                return false ;
+        }
+    }
+
+    /** The next stream input row that is not sent to disk, or null. */
+    private Binding nextStreamInput() {
+        while ( iterStream.hasNext() ) {
+            Binding row = iterStream.next() ;
+            s_countScan ++ ;
+            if ( ! spillStreamRow(row) )
+                return row ;
+        }
+        return null ;
+    }
+
+    /** Start a block with a stream row and the following rows from the same source. */
+    private void startBlock(Binding row, Supplier<Binding> source) {
+        block = new ArrayList<>() ;
+        block.add(row) ;
+        while ( block.size() < blockSize ) {
+            Binding b = source.get() ;
+            if ( b == null )
+                break ;
+            block.add(b) ;
+        }
+        blockYielded = new boolean[block.size()] ;
+        blockIdx = 0 ;
+        blockDiskPass = false ;
+        rowStream = block.get(0) ;
+        iterCurrent = memoryProbeRows(rowStream) ;
+    }
+
+    /**
+     * The next result of the block.
+     * Each stream row is joined with the probe rows in memory, then the probe rows
+     * on disk are read once and joined with every stream row of the block,
+     * then the stream rows with no results are passed to {@link #noYieldedRows}.
+     */
+    private Binding nextBlockResult() {
+        while ( ! blockDiskPass ) {
+            while ( iterCurrent.hasNext() ) {
+                Binding r = joinRows(iterCurrent.next(), rowStream) ;
+                if ( r != null ) {
+                    blockYielded[blockIdx] = true ;
+                    return r ;
+                }
+            }
+            blockIdx++ ;
+            if ( blockIdx < block.size() ) {
+                rowStream = block.get(blockIdx) ;
+                iterCurrent = memoryProbeRows(rowStream) ;
+                continue ;
+            }
+            blockDiskPass = true ;
+            blockIdx = block.size() ;
+            iterCurrent = null ;
+            iterBlockProbe = diskProbeRows() ;
+            s_diskPasses++ ;
+        }
+        if ( iterBlockProbe != null ) {
+            for(;;) {
+                if ( blockIdx < block.size() ) {
+                    Binding r = joinRows(rowBlockProbe, block.get(blockIdx)) ;
+                    if ( r != null )
+                        blockYielded[blockIdx] = true ;
+                    blockIdx++ ;
+                    if ( r != null )
+                        return r ;
+                    continue ;
+                }
+                if ( ! iterBlockProbe.hasNext() )
+                    break ;
+                rowBlockProbe = iterBlockProbe.next() ;
+                blockIdx = 0 ;
+            }
+            iterBlockProbe = null ;
+            rowBlockProbe = null ;
+            blockIdx = 0 ;
+        }
+        while ( blockIdx < block.size() ) {
+            int i = blockIdx++ ;
+            if ( ! blockYielded[i] ) {
+                Binding b = noYieldedRows(block.get(i)) ;
+                if ( b != null ) {
+                    s_countScan ++ ;
+                    return b ;
+                }
+            }
+        }
+        block = null ;
+        blockYielded = null ;
+        return null ;
+    }
+
+    /** Join a probe row and a stream row, returning the result or null. */
+    private Binding joinRows(Binding rowProbe, Binding row) {
+        Binding r = Algebra.merge(rowProbe, row) ;
+        if ( r == null )
+            return null ;
+        Binding r2 = yieldOneResult(rowProbe, row, r) ;
+        if ( r2 != null )
+            s_countResults ++ ;
+        return r2 ;
+    }
+
+    /**
+     * Load the next partition from disk.
+     * The stream rows without the join key are joined first, with all the probe rows,
+     * while the partitions are still as first written.
+     */
+    private boolean nextPartition() {
+        if ( currentPartition != null ) {
+            currentTable.clear() ;
+            currentTable = null ;
+            s_bytesSpilled += currentPartition.close() ;
+            currentPartition = null ;
+        }
+        if ( pending == null ) {
+            pending = new ArrayDeque<>() ;
+            for ( SpilledPartition part : spilled ) {
+                if ( part != null )
+                    pending.add(part) ;
+            }
+            if ( spilledNoKey != null ) {
+                iterSpilled = spilledNoKey.iterator() ;
+                return true ;
+            }
+        }
+        while ( ! pending.isEmpty() ) {
+            SpilledPartition part = pending.pop() ;
+            if ( part.probeCount > threshold && part.splittable && part.level < MAX_LEVELS ) {
+                repartition(part) ;
+                continue ;
+            }
+            currentPartition = part ;
+            currentTable = new HashProbeTable(joinKey) ;
+            part.probe.iterator().forEachRemaining(currentTable::put) ;
+            iterSpilled = part.stream.iterator() ;
+            return true ;
+        }
+        iterSpilled = null ;
+        return false ;
+    }
+
+    /** Split a partition on disk into partitions at the next level, to be loaded next. */
+    private void repartition(SpilledPartition part) {
+        int level = part.level + 1 ;
+        SpilledPartition[] parts = new SpilledPartition[PARTITIONS] ;
+        part.probe.iterator().forEachRemaining(row -> subPartition(parts, row, level).addProbe(row)) ;
+        part.stream.iterator().forEachRemaining(row -> subPartition(parts, row, level).stream.add(row)) ;
+        s_bytesSpilled += part.close() ;
+        for ( int i = PARTITIONS - 1 ; i >= 0 ; i-- ) {
+            if ( parts[i] == null )
+                continue ;
+            // All the rows in one partition: the rows have the same join key.
+            if ( parts[i].probeCount == part.probeCount )
+                parts[i].splittable = false ;
+            pending.push(parts[i]) ;
+            s_partitionsSpilled++ ;
+        }
+    }
+
+    private SpilledPartition subPartition(SpilledPartition[] parts, Binding row, int level) {
+        int p = partition(JoinLib.hash(joinKey, row), level) ;
+        if ( parts[p] == null )
+            parts[p] = new SpilledPartition(level) ;
+        return parts[p] ;
+    }
+
+    /** The probe rows in memory that may join with a stream row. */
+    private Iterator<Binding> memoryProbeRows(Binding row) {
+        // The stream input.
+        if ( pending == null )
+            return hashTable.getCandidates(row) ;
+        // A partition from disk.
+        if ( currentPartition != null )
+            return Iter.concat(currentTable.getCandidates(row), hashTable.getNoKey$().iterator()) ;
+        // The stream rows without the join key.
+        return hashTable.values() ;
+    }
+
+    /** The probe rows on disk that may join with the current block of stream rows. */
+    private Iterator<Binding> diskProbeRows() {
+        Iterator<Binding> iter = Iter.nullIterator() ;
+        if ( pending != null && currentPartition == null ) {
+            for ( SpilledPartition part : spilled ) {
+                if ( part != null )
+                    iter = Iter.concat(iter, part.probe.iterator()) ;
+            }
+        }
+        if ( spilledProbeNoKey != null )
+            iter = Iter.concat(iter, spilledProbeNoKey.iterator()) ;
+        return iter ;
+    }
+
+    /** The probe rows and stream rows of one partition on disk. */
+    private static class SpilledPartition {
+        final int level ;
+        final PartitionBag probe = new PartitionBag() ;
+        final PartitionBag stream = new PartitionBag() ;
+        long probeCount = 0 ;
+        boolean splittable = true ;
+        private boolean closed = false ;
+
+        SpilledPartition(int level) {
+            this.level = level ;
+        }
+
+        void addProbe(Binding row) {
+            probe.add(row) ;
+            probeCount++ ;
+        }
+
+        /** Release the disk space, returning the bytes that had been written. */
+        long close() {
+            if ( closed )
+                return 0 ;
+            closed = true ;
+            long x = probe.bytesWritten() + stream.bytesWritten() ;
+            probe.close() ;
+            stream.close() ;
+            return x ;
+        }
+    }
+
+    /** Number of rows put in the probe table. */
+    public long getCountProbeRows() {
+        return s_countProbe ;
+    }
+
+    /** Number of probe table partitions moved to disk. */
+    public long getCountPartitionsSpilled() {
+        return s_partitionsSpilled ;
+    }
+
+    /** Bytes written to disk. This is counted as the disk space is released. */
+    public long getBytesSpilled() {
+        return s_bytesSpilled ;
+    }
+
+    /** Number of times probe rows on disk were read for a block of stream rows. */
+    public long getCountDiskPasses() {
+        return s_diskPasses ;
+    }
+
     @Override
     protected boolean hasNextBinding() {
         if ( isFinished() ) 
@@ -131,21 +565,26 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
         }
         
         for(;;) {
+            if ( block != null ) {
+                Binding b = nextBlockResult() ;
+                if ( b != null )
+                    return b ;
+                continue ;
+            }
             // Ensure we are processing a row. 
-            while ( iterCurrent == null ) {
+            while ( iterCurrent == null && block == null ) {
                 // Move on to the next row from the right.
-                if ( ! iterStream.hasNext() ) {
+                if ( ! nextStreamRow() ) {
                     state = Phase.TRAILER ;
                     iterTail = joinFinished() ;
                     if ( iterTail != null )
                         return doOneTail() ;
                     return null ;
                 }
-                rowStream = iterStream.next() ;
-                s_countScan ++ ;
-                iterCurrent = hashTable.getCandidates(rowStream) ;
                 yielded = false ;
             }
+            if ( block != null )
+                continue ;
             
             // Emit one row using the rightRow and the current matched left rows. 
             if ( ! iterCurrent.hasNext() ) {
@@ -219,16 +658,40 @@ public abstract class AbstractIterHashJoin extends QueryIter2 {
         
     @Override
     protected void closeSubIterator() {
+        if ( spilled != null )
+            releaseSpilled() ;
         if ( JoinLib.JOIN_EXPLAIN ) {
             String x = String.format(
-                         "HashJoin: LHS=%d RHS=%d Results=%d RightMisses=%d MaxBucket=%d NoKeyBucket=%d",
+                         "HashJoin: LHS=%d RHS=%d Results=%d RightMisses=%d MaxBucket=%d NoKeyBucket=%d Spilled=%d Bytes=%d DiskPasses=%d",
                          s_countProbe, s_countScan, s_countResults, 
-                         hashTable.s_countScanMiss, hashTable.s_maxBucketSize, hashTable.s_noKeyBucketSize) ;
+                         hashTable.s_countScanMiss, hashTable.s_maxBucketSize, hashTable.s_noKeyBucketSize,
+                         s_partitionsSpilled, s_bytesSpilled, s_diskPasses) ;
             System.out.println(x) ;
         }
         // In case it's a peek iterator.
         iterStream.close() ;
         hashTable.clear(); 
+        if ( currentTable != null )
+            currentTable.clear() ;
+    }
+
+    private void releaseSpilled() {
+        for ( SpilledPartition part : spilled ) {
+            if ( part != null )
+                s_bytesSpilled += part.close() ;
+        }
+        if ( pending != null ) {
+            for ( SpilledPartition part : pending )
+                s_bytesSpilled += part.close() ;
+        }
+        if ( currentPartition != null )
+            s_bytesSpilled += currentPartition.close() ;
+        for ( PartitionBag bag : new PartitionBag[] {spilledProbeNoKey, spilledNoKey} ) {
+            if ( bag != null ) {
+                s_bytesSpilled += bag.bytesWritten() ;
+                bag.close() ;
+            }
+        }
     }
 
     @Override
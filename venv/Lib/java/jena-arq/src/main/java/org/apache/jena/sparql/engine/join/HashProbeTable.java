@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Predicate;
 
 import org.apache.commons.collections4.MultiMapUtils;
 import org.apache.commons.collections4.MultiValuedMap;
@@ -110,6 +111,29 @@ class HashProbeTable {
                            noKeyBucket.iterator()) ;
     }
 
+    /**
+     * Remove the rows with a hash key that satisfies the test, and return them.
+     * Rows with no key are not affected.
+     */
+    public List<Binding> remove(Predicate<Object> keyTest) {
+        List<Object> keys = new ArrayList<>();
+        for ( Object key : buckets.keySet() ) {
+            if ( keyTest.test(key) )
+                keys.add(key);
+        }
+        List<Binding> removed = new ArrayList<>();
+        for ( Object key : keys )
+            removed.addAll(buckets.remove(key));
+        return removed;
+    }
+
+    /** Remove the rows with no key, and return them. */
+    public List<Binding> removeNoKey() {
+        List<Binding> removed = new ArrayList<>(noKeyBucket);
+        noKeyBucket.clear();
+        return removed;
+    }
+
     public void clear() {
         buckets.clear();
     }
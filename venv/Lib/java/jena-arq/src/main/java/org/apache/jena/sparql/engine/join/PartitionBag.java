@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.join;
+
+import java.io.File;
+import java.util.Iterator;
+
+import org.apache.jena.atlas.data.DefaultDataBag;
+import org.apache.jena.atlas.data.ThresholdPolicyFactory;
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.system.SerializationFactoryFinder;
+
+/**
+ * The rows of one partition of a hash join that has been moved out of memory.
+ * All rows are written to a temporary file.
+ */
+class PartitionBag extends DefaultDataBag<Binding> {
+
+    PartitionBag() {
+        super(ThresholdPolicyFactory.count(0), SerializationFactoryFinder.bindingSerializationFactory());
+    }
+
+    @Override
+    public Iterator<Binding> iterator() {
+        // Nothing added means no spill file.
+        if ( isEmpty() )
+            return Iter.nullIterator();
+        return super.iterator();
+    }
+
+    /** Bytes written to disk. This is only complete when the bag has been read. */
+    long bytesWritten() {
+        long x = 0;
+        for ( File f : getSpillFiles() )
+            x += f.length();
+        return x;
+    }
+}
@@ -81,7 +81,8 @@ public class QueryIterHashLeftJoin_Left extends AbstractIterHashJoin {
     }
     
     private QueryIterHashLeftJoin_Left(JoinKey joinKey, QueryIterator left, QueryIterator right, ExprList conditions, ExecutionContext execCxt) {
-        super(joinKey, left, right, execCxt) ;
+        // The unmatched left rows are found from the probe table so it stays in memory.
+        super(joinKey, left, right, false, execCxt) ;
         this.conditions = conditions ;
     }
 
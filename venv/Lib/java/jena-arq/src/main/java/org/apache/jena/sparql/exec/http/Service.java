@@ -187,30 +187,62 @@ public class Service {
 
         Op opRestored = Rename.reverseVarRename(opRemote, true);
         query = OpAsQuery.asQuery(opRestored);
+        Map<Var, Var> varMapping = remoteVarMapping(op, opRestored);
+
+        try {
+            // Detach from the network stream.
+            RowSet rowSet = select(serviceURL, query, context).materialize();
+            QueryIterator qIter = QueryIterPlainWrapper.create(rowSet);
+            if ( varMapping != null )
+                qIter = QueryIter.map(qIter, varMapping);
+            return qIter;
+        } catch (HttpException ex) {
+            throw QueryExceptionHTTP.rewrap(ex);
+        }
+    }
+
+    /**
+     * The mapping from the variables of the query sent to the remote endpoint,
+     * after {@link Rename#reverseVarRename}, to the variables of the {@link OpService}.
+     * Returns null if no variables need to be renamed.
+     */
+    public static Map<Var, Var> remoteVarMapping(OpService op, Op opRestored) {
+        Op opRemote = op.getSubOp();
         // Transforming: Same object means "no change"
+        if ( opRestored.equals(opRemote) )
+            return null;
         boolean requiresRemapping = false;
-        Map<Var, Var> varMapping = null;
-        if ( ! opRestored.equals(opRemote) ) {
-            varMapping = new HashMap<>();
-            Set<Var> originalVars = OpVars.visibleVars(op);
-            Set<Var> remoteVars = OpVars.visibleVars(opRestored);
-
-            for (Var v : originalVars) {
-                if (v.getName().contains("/")) {
-                    // A variable which was scope renamed so has a different name
-                    String origName = v.getName().substring(v.getName().lastIndexOf('/') + 1);
-                    Var remoteVar = Var.alloc(origName);
-                    if (remoteVars.contains(remoteVar)) {
-                        varMapping.put(remoteVar, v);
-                        requiresRemapping = true;
-                    }
-                } else {
-                    // A variable which does not have a different name
-                    if (remoteVars.contains(v))
-                        varMapping.put(v, v);
+        Map<Var, Var> varMapping = new HashMap<>();
+        Set<Var> originalVars = OpVars.visibleVars(op);
+        Set<Var> remoteVars = OpVars.visibleVars(opRestored);
+
+        for (Var v : originalVars) {
+            if (v.getName().contains("/")) {
+                // A variable which was scope renamed so has a different name
+                String origName = v.getName().substring(v.getName().lastIndexOf('/') + 1);
+                Var remoteVar = Var.alloc(origName);
+                if (remoteVars.contains(remoteVar)) {
+                    varMapping.put(remoteVar, v);
+                    requiresRemapping = true;
                 }
+            } else {
+                // A variable which does not have a different name
+                if (remoteVars.contains(v))
+                    varMapping.put(v, v);
             }
         }
+        return requiresRemapping ? varMapping : null;
+    }
+
+    /**
+     * Send a SELECT query to a remote endpoint, using the settings for SERVICE
+     * in the context. The caller is responsible for checking that SERVICE is allowed
+     * ({@link #checkServiceAllowed(Context)}). The {@link RowSet} is streamed from the
+     * network; call {@link RowSet#materialize()} to detach it.
+     */
+    public static RowSet select(String serviceURL, Query query, Context context) {
+        if ( context == null )
+            context = emptyContext;
 
         // -- Setup
         //boolean withCompression = context.isTrueOrUndef(httpQueryCompression);
@@ -236,12 +268,7 @@ public class Service {
                 .sendMode(querySendMode)
                 .build();
         try {
-            // Detach from the network stream.
-            RowSet rowSet = qExec.select().materialize();
-            QueryIterator qIter = QueryIterPlainWrapper.create(rowSet);
-            if (requiresRemapping)
-                qIter = QueryIter.map(qIter, varMapping);
-            return qIter;
+            return qExec.select();
         } catch (HttpException ex) {
             throw QueryExceptionHTTP.rewrap(ex);
         }
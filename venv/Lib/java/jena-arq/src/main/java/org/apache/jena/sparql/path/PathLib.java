@@ -26,6 +26,7 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 
 import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.lib.Pair ;
 import org.apache.jena.graph.Graph ;
 import org.apache.jena.graph.Node ;
 import org.apache.jena.sparql.ARQInternalErrorException ;
@@ -44,6 +45,7 @@ import org.apache.jena.sparql.engine.binding.BindingFactory ;
 import org.apache.jena.sparql.engine.iterator.*;
 import org.apache.jena.sparql.mgt.Explain ;
 import org.apache.jena.sparql.path.eval.PathEval ;
+import org.apache.jena.sparql.path.eval.PathEvalBitmap ;
 import org.apache.jena.sparql.pfunction.PropertyFunctionFactory ;
 import org.apache.jena.sparql.pfunction.PropertyFunctionRegistry ;
 import org.apache.jena.sparql.util.Context;
@@ -177,6 +179,15 @@ public class PathLib
 
     // Evaluation of a TriplePath where neither subject nor object are bound
     private static QueryIterator execUngroundedPath(Binding binding, Graph graph, Var sVar, Path path, Var oVar, ExecutionContext execCxt) {
+        PathEvalBitmap bitmapEval = PathEvalBitmap.create(graph, execCxt.getContext()) ;
+        if ( bitmapEval != null ) {
+            // All subjects at once.
+            Iterator<Pair<Node, Node>> pairs = bitmapEval.evalAll(path) ;
+            if ( pairs != null ) {
+                Iterator<Binding> results = Iter.map(pairs, pair -> BindingFactory.binding(binding, sVar, pair.getLeft(), oVar, pair.getRight())) ;
+                return QueryIterPlainWrapper.create(results, execCxt) ;
+            }
+        }
         // Starting at the subject, forward direction path
         Iterator<Node> iter = ungroundedStartingSet(graph, path, execCxt) ;
         QueryIterator input = new QueryIterExtendByVar(binding, sVar, iter, execCxt);
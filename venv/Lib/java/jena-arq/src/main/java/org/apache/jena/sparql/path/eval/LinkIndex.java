@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.path.eval ;
+
+import java.util.* ;
+
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.util.iterator.ExtendedIterator ;
+import org.roaringbitmap.RoaringBitmap ;
+
+/**
+ * The links of one property of a graph, with the nodes given dense integer ids.
+ * <p>
+ * The index is built with one {@code find(ANY, property, ANY)} and holds the links
+ * as compressed adjacency arrays in both directions. The transitive closures are
+ * calculated over the strongly connected components: every node in a component
+ * reaches the same nodes, so the closure of a component is calculated once, from
+ * the closures of the components it links to, and kept.
+ */
+/*package*/ class LinkIndex
+{
+    private final Node property ;
+    private final Node[] nodes ;
+    private final Map<Node, Integer> ids ;
+    private final Adjacency forward ;
+    private final Adjacency backward ;
+    // Strongly connected components : node id -> component, and the members of each component.
+    private int[] component = null ;
+    private int[] memberOffsets = null ;
+    private int[] members = null ;
+
+    /*package*/ static LinkIndex build(Graph graph, Node property) {
+        Map<Node, Integer> ids = new HashMap<>() ;
+        List<Node> nodes = new ArrayList<>() ;
+        int[] src = new int[1024] ;
+        int[] dst = new int[1024] ;
+        int count = 0 ;
+        ExtendedIterator<Triple> iter = graph.find(Node.ANY, property, Node.ANY) ;
+        try {
+            while(iter.hasNext()) {
+                Triple t = iter.next() ;
+                if ( count == src.length ) {
+                    src = Arrays.copyOf(src, 2*count) ;
+                    dst = Arrays.copyOf(dst, 2*count) ;
+                }
+                src[count] = id(ids, nodes, t.getSubject()) ;
+                dst[count] = id(ids, nodes, t.getObject()) ;
+                count++ ;
+            }
+        } finally { iter.close() ; }
+        int size = nodes.size() ;
+        Adjacency forward = new Adjacency(size, src, dst, count) ;
+        Adjacency backward = new Adjacency(size, dst, src, count) ;
+        return new LinkIndex(property, nodes.toArray(new Node[size]), ids, forward, backward) ;
+    }
+
+    private static int id(Map<Node, Integer> ids, List<Node> nodes, Node node) {
+        Integer x = ids.get(node) ;
+        if ( x != null )
+            return x ;
+        int id = nodes.size() ;
+        nodes.add(node) ;
+        ids.put(node, id) ;
+        return id ;
+    }
+
+    private LinkIndex(Node property, Node[] nodes, Map<Node, Integer> ids, Adjacency forward, Adjacency backward) {
+        this.property = property ;
+        this.nodes = nodes ;
+        this.ids = ids ;
+        this.forward = forward ;
+        this.backward = backward ;
+    }
+
+    /*package*/ Node getProperty()      { return property ; }
+
+    /*package*/ int size()              { return nodes.length ; }
+
+    /*package*/ Node node(int id)       { return nodes[id] ; }
+
+    /** The id of a node, or -1 if the node is not the subject or object of a link. */
+    /*package*/ int id(Node node) {
+        Integer x = ids.get(node) ;
+        return ( x == null ) ? -1 : x ;
+    }
+
+    /** Whether the node has any links in the direction. */
+    /*package*/ boolean hasLinks(int id, boolean forwards) {
+        Adjacency adj = forwards ? forward : backward ;
+        return adj.offsets[id] != adj.offsets[id+1] ;
+    }
+
+    /**
+     * The ids of nodes reachable from node {@code id}, following links in the
+     * direction given : zero or more steps if {@code zero} is true, else one or
+     * more steps. The returned bitmap must not be modified.
+     */
+    /*package*/ synchronized RoaringBitmap reachable(int id, boolean zero, boolean forwards) {
+        Adjacency adj = forwards ? forward : backward ;
+        if ( component == null )
+            components() ;
+        if ( zero )
+            return closure(adj, component[id]) ;
+        // One or more : the union of the closures of the nodes one step away.
+        int start = adj.offsets[id] ;
+        int finish = adj.offsets[id+1] ;
+        if ( start == finish )
+            return EMPTY ;
+        if ( finish - start == 1 )
+            return closure(adj, component[adj.targets[start]]) ;
+        RoaringBitmap result = new RoaringBitmap() ;
+        for ( int i = start ; i < finish ; i++ )
+            result.or(closure(adj, component[adj.targets[i]])) ;
+        return result ;
+    }
+
+    private static final RoaringBitmap EMPTY = new RoaringBitmap() ;
+
+    /** Closure (zero or more steps) of a component, calculating any missing closures it depends on. */
+    private RoaringBitmap closure(Adjacency adj, int comp) {
+        RoaringBitmap[] memo = adj.closures ;
+        if ( memo[comp] != null )
+            return memo[comp] ;
+        // Depth first over the components, without recursion. A component is
+        // calculated when all the components it links to have been calculated.
+        IntStack stack = new IntStack() ;
+        stack.push(comp) ;
+        while(!stack.isEmpty()) {
+            int c = stack.peek() ;
+            if ( memo[c] != null ) {
+                stack.pop() ;
+                continue ;
+            }
+            boolean ready = true ;
+            for ( int m = memberOffsets[c] ; m < memberOffsets[c+1] ; m++ ) {
+                int u = members[m] ;
+                for ( int i = adj.offsets[u] ; i < adj.offsets[u+1] ; i++ ) {
+                    int c2 = component[adj.targets[i]] ;
+                    if ( c2 != c && memo[c2] == null ) {
+                        stack.push(c2) ;
+                        ready = false ;
+                    }
+                }
+            }
+            if ( !ready )
+                continue ;
+            RoaringBitmap bitmap = new RoaringBitmap() ;
+            for ( int m = memberOffsets[c] ; m < memberOffsets[c+1] ; m++ ) {
+                int u = members[m] ;
+                bitmap.add(u) ;
+                for ( int i = adj.offsets[u] ; i < adj.offsets[u+1] ; i++ ) {
+                    int c2 = component[adj.targets[i]] ;
+                    if ( c2 != c )
+                        bitmap.or(memo[c2]) ;
+                }
+            }
+            bitmap.runOptimize() ;
+            memo[c] = bitmap ;
+            stack.pop() ;
+        }
+        return memo[comp] ;
+    }
+
+    /** Tarjan's algorithm, iterative form, over the forward links. */
+    private void components() {
+        int n = nodes.length ;
+        int[] index = new int[n] ;
+        int[] lowlink = new int[n] ;
+        boolean[] onStack = new boolean[n] ;
+        int[] comp = new int[n] ;
+        Arrays.fill(index, -1) ;
+        IntStack sccStack = new IntStack() ;
+        // Call stack : node, and the position in its adjacency list.
+        IntStack callNode = new IntStack() ;
+        IntStack callEdge = new IntStack() ;
+        int nextIndex = 0 ;
+        int nextComp = 0 ;
+
+        for ( int root = 0 ; root < n ; root++ ) {
+            if ( index[root] >= 0 )
+                continue ;
+            index[root] = lowlink[root] = nextIndex++ ;
+            sccStack.push(root) ;
+            onStack[root] = true ;
+            callNode.push(root) ;
+            callEdge.push(forward.offsets[root]) ;
+            while(!callNode.isEmpty()) {
+                int v = callNode.peek() ;
+                int e = callEdge.peek() ;
+                if ( e < forward.offsets[v+1] ) {
+                    callEdge.set(e+1) ;
+                    int w = forward.targets[e] ;
+                    if ( index[w] < 0 ) {
+                        index[w] = lowlink[w] = nextIndex++ ;
+                        sccStack.push(w) ;
+                        onStack[w] = true ;
+                        callNode.push(w) ;
+                        callEdge.push(forward.offsets[w]) ;
+                    } else if ( onStack[w] ) {
+                        lowlink[v] = Math.min(lowlink[v], index[w]) ;
+                    }
+                    continue ;
+                }
+                // All links of v done.
+                callNode.pop() ;
+                callEdge.pop() ;
+                if ( lowlink[v] == index[v] ) {
+                    int w ;
+                    do {
+                        w = sccStack.pop() ;
+                        onStack[w] = false ;
+                        comp[w] = nextComp ;
+                    } while (w != v) ;
+                    nextComp++ ;
+                }
+                if ( !callNode.isEmpty() ) {
+                    int parent = callNode.peek() ;
+                    lowlink[parent] = Math.min(lowlink[parent], lowlink[v]) ;
+                }
+            }
+        }
+
+        // Members of each component, as offsets into one array.
+        int[] offsets = new int[nextComp+1] ;
+        for ( int v = 0 ; v < n ; v++ )
+            offsets[comp[v]+1]++ ;
+        for ( int c = 0 ; c < nextComp ; c++ )
+            offsets[c+1] += offsets[c] ;
+        int[] fill = Arrays.copyOf(offsets, nextComp) ;
+        int[] list = new int[n] ;
+        for ( int v = 0 ; v < n ; v++ )
+            list[fill[comp[v]]++] = v ;
+
+        this.component = comp ;
+        this.memberOffsets = offsets ;
+        this.members = list ;
+        forward.closures = new RoaringBitmap[nextComp] ;
+        backward.closures = new RoaringBitmap[nextComp] ;
+    }
+
+    /** Links in one direction : the targets of node {@code i} are {@code targets[offsets[i]]} to {@code targets[offsets[i+1]-1]}. */
+    private static class Adjacency {
+        final int[] offsets ;
+        final int[] targets ;
+        RoaringBitmap[] closures = null ;
+
+        Adjacency(int size, int[] from, int[] to, int count) {
+            offsets = new int[size+1] ;
+            for ( int i = 0 ; i < count ; i++ )
+                offsets[from[i]+1]++ ;
+            for ( int i = 0 ; i < size ; i++ )
+                offsets[i+1] += offsets[i] ;
+            int[] fill = Arrays.copyOf(offsets, size) ;
+            targets = new int[count] ;
+            for ( int i = 0 ; i < count ; i++ )
+                targets[fill[from[i]]++] = to[i] ;
+        }
+    }
+
+    private static class IntStack {
+        private int[] elts = new int[64] ;
+        private int size = 0 ;
+
+        boolean isEmpty()   { return size == 0 ; }
+        int peek()          { return elts[size-1] ; }
+        int pop()           { return elts[--size] ; }
+        void set(int x)     { elts[size-1] = x ; }
+
+        void push(int x) {
+            if ( size == elts.length )
+                elts = Arrays.copyOf(elts, 2*size) ;
+            elts[size++] = x ;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.path.eval ;
+
+import java.util.HashMap ;
+import java.util.Map ;
+import java.util.WeakHashMap ;
+import java.util.concurrent.atomic.AtomicLong ;
+
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.GraphListenerBase ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.sparql.core.GraphView ;
+
+/**
+ * Cache of the transitive closures of properties, kept between query executions.
+ * <p>
+ * Used by path evaluation with {@link ARQ#pathEvalBitmap} when a cache is set in the
+ * context with {@link ARQ#pathClosureCache}. The closures for a graph are dropped
+ * when the graph reports a change through its {@link Graph#getEventManager() event manager}.
+ * <p>
+ * Graphs that are views of a dataset ({@link GraphView}), such as the graphs of TDB2
+ * and transactional in-memory datasets, and graphs that support transactions, are not
+ * cached: they can change without an event on the graph object, and what they contain
+ * depends on the transaction. The closures for such graphs are calculated each time.
+ * Other changes that do not go through the graph object are not seen: use
+ * {@link #invalidate()} after such changes.
+ */
+public class PathClosureCache
+{
+    // Graphs are compared by identity.
+    private final Map<Graph, Entry> graphs = new WeakHashMap<>() ;
+    private final AtomicLong builds = new AtomicLong(0) ;
+
+    public PathClosureCache() {}
+
+    /*package*/ LinkIndex get(Graph graph, Node property) {
+        if ( ! isCacheable(graph) ) {
+            builds.incrementAndGet() ;
+            return LinkIndex.build(graph, property) ;
+        }
+        Entry entry ;
+        synchronized(this) {
+            entry = graphs.get(graph) ;
+            if ( entry == null ) {
+                entry = new Entry() ;
+                graph.getEventManager().register(entry) ;
+                graphs.put(graph, entry) ;
+            }
+        }
+        long generation ;
+        synchronized(entry) {
+            LinkIndex index = entry.indexes.get(property) ;
+            if ( index != null )
+                return index ;
+            generation = entry.generation ;
+        }
+        // Build without holding the lock so a change to the graph is not held up.
+        LinkIndex index = LinkIndex.build(graph, property) ;
+        builds.incrementAndGet() ;
+        synchronized(entry) {
+            // Not kept if the graph changed while the index was being built.
+            if ( entry.generation == generation )
+                entry.indexes.putIfAbsent(property, index) ;
+        }
+        return index ;
+    }
+
+    /** Whether the closures of a graph can be kept: the graph is not a view of a dataset or transactional. */
+    public static boolean isCacheable(Graph graph) {
+        if ( graph instanceof GraphView )
+            return false ;
+        return ! graph.getTransactionHandler().transactionsSupported() ;
+    }
+
+    /** Drop everything. */
+    public synchronized void invalidate() {
+        graphs.values().forEach(Entry::clear) ;
+    }
+
+    /** Drop the closures for one graph. */
+    public synchronized void invalidate(Graph graph) {
+        Entry entry = graphs.get(graph) ;
+        if ( entry != null )
+            entry.clear() ;
+    }
+
+    /** Number of times the links of a property have been read from a graph. */
+    public long getBuildCount() {
+        return builds.get() ;
+    }
+
+    private static class Entry extends GraphListenerBase {
+        final Map<Node, LinkIndex> indexes = new HashMap<>() ;
+        // Changed each time the indexes are dropped.
+        long generation = 0 ;
+
+        synchronized void clear() {
+            indexes.clear() ;
+            generation++ ;
+        }
+
+        @Override protected void addEvent(Triple t)     { clear() ; }
+        @Override protected void deleteEvent(Triple t)  { clear() ; }
+        @Override public void notifyEvent(Graph source, Object value) { clear() ; }
+    }
+}
@@ -33,6 +33,7 @@ import org.apache.jena.sparql.util.Context ;
 public class PathEngineSPARQL extends PathEngine
 {
     private boolean forwardMode ;
+    private final PathEvalBitmap bitmapEval ;
 
     public PathEngineSPARQL(Graph graph, Context context) {
         this(graph, true, context) ;
@@ -41,6 +42,7 @@ public class PathEngineSPARQL extends PathEngine
     /* package */PathEngineSPARQL(Graph graph, boolean forward, Context context) {
         super(graph, context) ;
         this.forwardMode = forward ;
+        this.bitmapEval = PathEvalBitmap.create(graph, context) ;
     }
 
     protected Set<Node> visitedAcc() {
@@ -98,12 +100,16 @@ public class PathEngineSPARQL extends PathEngine
     
     @Override
     protected void doZeroOrMore(Path pathStep, Node node, Collection<Node> output) {
+        if ( bitmapEval != null && bitmapEval.eval(pathStep, node, true, forwardMode, output) )
+            return ;
         Set<Node> visited = visitedAcc() ;
         ALP_1(0, -1, node, pathStep, visited, output) ;
     }
 
     @Override
     protected void doOneOrMore(Path pathStep, Node node, Collection<Node> output) {
+        if ( bitmapEval != null && bitmapEval.eval(pathStep, node, false, forwardMode, output) )
+            return ;
         // Track visited.
         Set<Node> visited = visitedAcc() ;
         // Do one step without including.
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.path.eval ;
+
+import java.util.* ;
+import java.util.stream.IntStream ;
+
+import org.apache.jena.atlas.iterator.Iter ;
+import org.apache.jena.atlas.lib.Pair ;
+import org.apache.jena.graph.Graph ;
+import org.apache.jena.graph.Node ;
+import org.apache.jena.graph.Triple ;
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.sparql.path.* ;
+import org.apache.jena.sparql.pfunction.PropertyFunctionRegistry ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.sparql.util.graph.GraphUtils ;
+import org.apache.jena.util.iterator.ExtendedIterator ;
+import org.roaringbitmap.IntIterator ;
+import org.roaringbitmap.RoaringBitmap ;
+
+/**
+ * Evaluation of {@code :p+} and {@code :p*}, and their inverses, where {@code :p} is
+ * a single property, with SPARQL (distinct nodes) semantics.
+ * <p>
+ * Nodes are given dense integer ids and sets of nodes are bitmaps. From one start
+ * node, the search is breadth first, one frontier at a time. With both ends of the
+ * path unbound, the links of the property are read once and the closures are
+ * calculated over the strongly connected components (see {@link LinkIndex}).
+ * If a {@link PathClosureCache} is set in the context, the links and closures are
+ * kept and used for later evaluations.
+ * <p>
+ * Enabled by {@link ARQ#pathEvalBitmap}.
+ */
+public class PathEvalBitmap
+{
+    private final Graph graph ;
+    private final PathClosureCache cache ;
+    private final PropertyFunctionRegistry registry ;
+
+    /** Return a {@code PathEvalBitmap} for the graph, or null if not enabled in the context. */
+    public static PathEvalBitmap create(Graph graph, Context context) {
+        if ( context == null || ! context.isTrue(ARQ.pathEvalBitmap) )
+            return null ;
+        return new PathEvalBitmap(graph, context) ;
+    }
+
+    private PathEvalBitmap(Graph graph, Context context) {
+        this.graph = graph ;
+        Object x = context.get(ARQ.pathClosureCache) ;
+        this.cache = ( x instanceof PathClosureCache c ) ? c : null ;
+        this.registry = context.isTrueOrUndef(ARQ.propertyFunctions)
+            ? PropertyFunctionRegistry.chooseRegistry(context)
+            : null ;
+    }
+
+    /**
+     * Evaluate {@code pathStep*} (if {@code zero}) or {@code pathStep+} from a node
+     * and add the results to the output. Return false, and do nothing, if the
+     * path step is not a single property.
+     */
+    /*package*/ boolean eval(Path pathStep, Node node, boolean zero, boolean forwards, Collection<Node> output) {
+        Node property = property(pathStep) ;
+        if ( property == null )
+            return false ;
+        if ( ! isForward(pathStep) )
+            forwards = !forwards ;
+        if ( cache != null ) {
+            LinkIndex index = cache.get(graph, property) ;
+            int id = index.id(node) ;
+            if ( id < 0 ) {
+                if ( zero )
+                    output.add(node) ;
+                return true ;
+            }
+            nodes(index, index.reachable(id, zero, forwards)).forEachRemaining(output::add) ;
+            return true ;
+        }
+        search(node, property, zero, forwards, output) ;
+        return true ;
+    }
+
+    /**
+     * Evaluate {@code ?s path ?o} where both ends are unbound.
+     * Return null if the path is not {@code :p+} or {@code :p*} for a single property.
+     */
+    public Iterator<Pair<Node, Node>> evalAll(Path path) {
+        boolean zero ;
+        if ( path instanceof P_ZeroOrMore1 )
+            zero = true ;
+        else if ( path instanceof P_OneOrMore1 )
+            zero = false ;
+        else
+            return null ;
+        Path pathStep = ((P_Path1)path).getSubPath() ;
+        Node property = property(pathStep) ;
+        if ( property == null )
+            return null ;
+        boolean forwards = isForward(pathStep) ;
+        LinkIndex index = ( cache != null ) ? cache.get(graph, property) : LinkIndex.build(graph, property) ;
+
+        if ( zero ) {
+            // Every node of the graph is connected to itself by p*.
+            return Iter.flatMap(GraphUtils.allNodes(graph), s -> {
+                int id = index.id(s) ;
+                if ( id < 0 )
+                    return Iter.singleton(Pair.create(s, s)) ;
+                return Iter.map(nodes(index, index.reachable(id, true, forwards)), o -> Pair.create(s, o)) ;
+            }) ;
+        }
+
+        Iterator<Integer> starts = Iter.filter(IntStream.range(0, index.size()).iterator(), id -> index.hasLinks(id, forwards)) ;
+        return Iter.flatMap(starts, id -> {
+            Node s = index.node(id) ;
+            return Iter.map(nodes(index, index.reachable(id, false, forwards)), o -> Pair.create(s, o)) ;
+        }) ;
+    }
+
+    /** Breadth first search from one node, one frontier at a time. */
+    private void search(Node start, Node property, boolean zero, boolean forwards, Collection<Node> output) {
+        Map<Node, Integer> ids = new HashMap<>() ;
+        List<Node> nodes = new ArrayList<>() ;
+        nodes.add(start) ;
+        ids.put(start, 0) ;
+        RoaringBitmap visited = new RoaringBitmap() ;
+        if ( zero )
+            visited.add(0) ;
+        RoaringBitmap frontier = RoaringBitmap.bitmapOf(0) ;
+        while(!frontier.isEmpty()) {
+            RoaringBitmap next = new RoaringBitmap() ;
+            IntIterator iter = frontier.getIntIterator() ;
+            while(iter.hasNext()) {
+                Node n = nodes.get(iter.next()) ;
+                ExtendedIterator<Triple> links = forwards
+                    ? graph.find(n, property, Node.ANY)
+                    : graph.find(Node.ANY, property, n) ;
+                try {
+                    while(links.hasNext()) {
+                        Triple t = links.next() ;
+                        Node n2 = forwards ? t.getObject() : t.getSubject() ;
+                        Integer id = ids.get(n2) ;
+                        if ( id == null ) {
+                            id = nodes.size() ;
+                            nodes.add(n2) ;
+                            ids.put(n2, id) ;
+                        }
+                        next.add(id) ;
+                    }
+                } finally { links.close() ; }
+            }
+            next.andNot(visited) ;
+            visited.or(next) ;
+            frontier = next ;
+        }
+        IntIterator iter = visited.getIntIterator() ;
+        while(iter.hasNext())
+            output.add(nodes.get(iter.next())) ;
+    }
+
+    /** The property of a path step that is a single property, forwards or backwards; else null. */
+    private Node property(Path pathStep) {
+        while ( pathStep instanceof P_Inverse inv )
+            pathStep = inv.getSubPath() ;
+        if ( !( pathStep instanceof P_Path0 ) )
+            return null ;
+        Node property = ((P_Path0)pathStep).getNode() ;
+        if ( ! property.isURI() )
+            return null ;
+        // Property functions are called by the general path engine.
+        if ( registry != null && registry.get(property.getURI()) != null )
+            return null ;
+        return property ;
+    }
+
+    private static boolean isForward(Path pathStep) {
+        boolean forwards = true ;
+        while ( pathStep instanceof P_Inverse inv ) {
+            forwards = !forwards ;
+            pathStep = inv.getSubPath() ;
+        }
+        return ((P_Path0)pathStep).isForward() ? forwards : !forwards ;
+    }
+
+    private static Iterator<Node> nodes(LinkIndex index, RoaringBitmap bitmap) {
+        IntIterator iter = bitmap.getIntIterator() ;
+        return new Iterator<Node>() {
+            @Override public boolean hasNext() { return iter.hasNext() ; }
+            @Override public Node next()       { return index.node(iter.next()) ; }
+        } ;
+    }
+}
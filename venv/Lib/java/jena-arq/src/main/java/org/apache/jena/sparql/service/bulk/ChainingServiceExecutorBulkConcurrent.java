@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.service.bulk;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.ARQConstants;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.OpVars;
+import org.apache.jena.sparql.algebra.OpVisitorBase;
+import org.apache.jena.sparql.algebra.OpWalker;
+import org.apache.jena.sparql.algebra.Table;
+import org.apache.jena.sparql.algebra.op.*;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.service.ServiceExecutorRegistry;
+import org.apache.jena.sparql.util.Symbol;
+
+/**
+ * Bulk SERVICE execution for HTTP endpoints.
+ * <p>
+ * The input bindings are grouped into blocks and each block is sent as one query,
+ * with the values of the variables shared with the SERVICE pattern in a VALUES
+ * block. Blocks are sent concurrently, with at most {@code concurrency} requests
+ * outstanding to any one endpoint. Identical requests are sent once. If caching
+ * is enabled, the results for a binding are kept, per endpoint and SERVICE pattern,
+ * for the rest of the query execution. The results are returned in the order of
+ * the input bindings, as they are for one request per binding.
+ * <p>
+ * Only SERVICE patterns where a VALUES block gives the same results as substituting
+ * each binding are sent in blocks. Patterns with LIMIT, OFFSET, GROUP BY, MINUS or
+ * nested SERVICE, and bindings for variables the pattern does not always bind, are
+ * passed to the rest of the chain.
+ * <p>
+ * To use, add to the bulk chain of a {@link ServiceExecutorRegistry}:
+ * <pre>
+ *    ServiceExecutorRegistry.get().addBulkLink(new ChainingServiceExecutorBulkConcurrent());
+ * </pre>
+ */
+public class ChainingServiceExecutorBulkConcurrent implements ChainingServiceExecutorBulk {
+
+    /** Default number of distinct bindings sent in one request. */
+    public static final int DftBatchSize = 50;
+
+    /** Default maximum number of concurrent requests to one endpoint. */
+    public static final int DftConcurrency = 4;
+
+    /** Context key for the per query cache. */
+    /*package*/ static final Symbol symCache = Symbol.create(ARQConstants.systemVarNS+"serviceBulkCache");
+
+    private final int batchSize;
+    private final int concurrency;
+    private final boolean cache;
+
+    // Shared by all query executions using this executor.
+    private final Map<String, Semaphore> endpointLimits = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "SERVICE-bulk");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ChainingServiceExecutorBulkConcurrent() {
+        this(DftBatchSize, DftConcurrency, false);
+    }
+
+    /**
+     * @param batchSize   Number of distinct bindings sent in one request.
+     * @param concurrency Maximum number of concurrent requests to one endpoint.
+     * @param cache       Whether to keep the results for the rest of the query execution.
+     */
+    public ChainingServiceExecutorBulkConcurrent(int batchSize, int concurrency, boolean cache) {
+        if ( batchSize < 1 )
+            throw new IllegalArgumentException("Batch size must be one or more: " + batchSize);
+        if ( concurrency < 1 )
+            throw new IllegalArgumentException("Concurrency must be one or more: " + concurrency);
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.cache = cache;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public boolean isCache() {
+        return cache;
+    }
+
+    @Override
+    public QueryIterator createExecution(OpService opService, QueryIterator input, ExecutionContext execCxt, ServiceExecutorBulk chain) {
+        Node service = opService.getService();
+        if ( ! service.isURI() || ! isHTTP(service.getURI()) )
+            return chain.createExecution(opService, input, execCxt);
+        BatchCheck check = new BatchCheck();
+        OpWalker.walk(opService.getSubOp(), check);
+        if ( ! check.batchable )
+            return chain.createExecution(opService, input, execCxt);
+        Set<Var> batchVars = alwaysBound(opService.getSubOp());
+        batchVars.removeAll(check.assigned);
+        return new QueryIterServiceBulk(this, opService, batchVars, input, execCxt, chain);
+    }
+
+    /**
+     * The variables bound in every solution of a pattern. Unlike
+     * {@link OpVars#fixedVars}, a variable of a projection is only included if it
+     * is always bound by the pattern being projected, and a variable of a VALUES
+     * table is only included if it has a value in every row.
+     * Operators not covered here are taken to bind no variables.
+     */
+    private static Set<Var> alwaysBound(Op op) {
+        if ( op instanceof OpBGP || op instanceof OpTriple || op instanceof OpPath
+             || op instanceof OpQuadPattern || op instanceof OpQuadBlock || op instanceof OpQuad
+             || op instanceof OpDatasetNames )
+            return OpVars.fixedVars(op);
+        Set<Var> acc = new HashSet<>();
+        if ( op instanceof OpTable opTable ) {
+            Table table = opTable.getTable();
+            acc.addAll(table.getVars());
+            table.rows().forEachRemaining(row -> acc.removeIf(v -> ! row.contains(v)));
+        } else if ( op instanceof OpProject opProject ) {
+            acc.addAll(alwaysBound(opProject.getSubOp()));
+            acc.retainAll(opProject.getVars());
+        } else if ( op instanceof OpGraph opGraph ) {
+            acc.addAll(alwaysBound(opGraph.getSubOp()));
+            if ( Var.isVar(opGraph.getNode()) )
+                acc.add(Var.alloc(opGraph.getNode()));
+        } else if ( op instanceof OpJoin || op instanceof OpSequence ) {
+            for ( Op sub : subOps(op) )
+                acc.addAll(alwaysBound(sub));
+        } else if ( op instanceof OpUnion || op instanceof OpDisjunction ) {
+            List<Op> subs = subOps(op);
+            if ( ! subs.isEmpty() )
+                acc.addAll(alwaysBound(subs.get(0)));
+            for ( Op sub : subs )
+                acc.retainAll(alwaysBound(sub));
+        } else if ( op instanceof Op2 op2 ) {
+            // OPTIONAL, MINUS.
+            acc.addAll(alwaysBound(op2.getLeft()));
+        } else if ( op instanceof Op1 op1 ) {
+            // Filters, modifiers, BIND (which can leave the variable unbound).
+            acc.addAll(alwaysBound(op1.getSubOp()));
+        }
+        return acc;
+    }
+
+    private static List<Op> subOps(Op op) {
+        if ( op instanceof Op2 op2 )
+            return List.of(op2.getLeft(), op2.getRight());
+        return ((OpN)op).getElements();
+    }
+
+    private static boolean isHTTP(String uri) {
+        return uri.startsWith("http:") || uri.startsWith("https:");
+    }
+
+    /*package*/ ExecutorService executor() { return executor; }
+
+    /*package*/ Semaphore endpointLimit(String serviceURL) {
+        return endpointLimits.computeIfAbsent(serviceURL, k -> new Semaphore(concurrency, true));
+    }
+
+    /**
+     * Whether joining with a VALUES block is the same as substituting each binding.
+     * Operators that work on all the solutions of the pattern, or where the variables
+     * in scope matter, are not.
+     */
+    private static class BatchCheck extends OpVisitorBase {
+        boolean batchable = true;
+        final Set<Var> assigned = new HashSet<>();
+
+        @Override public void visit(OpSlice opSlice)            { batchable = false; }
+        @Override public void visit(OpTopN opTop)               { batchable = false; }
+        @Override public void visit(OpGroup opGroup)            { batchable = false; }
+        @Override public void visit(OpMinus opMinus)            { batchable = false; }
+        @Override public void visit(OpDiff opDiff)              { batchable = false; }
+        @Override public void visit(OpLateral opLateral)        { batchable = false; }
+        @Override public void visit(OpService opService)        { batchable = false; }
+        @Override public void visit(OpProcedure opProc)         { batchable = false; }
+        @Override public void visit(OpPropFunc opPropFunc)      { batchable = false; }
+        @Override public void visit(OpExt opExt)                { batchable = false; }
+
+        @Override public void visit(OpExtend opExtend)          { assigned.addAll(opExtend.getVarExprList().getVars()); }
+        @Override public void visit(OpAssign opAssign)          { assigned.addAll(opAssign.getVarExprList().getVars()); }
+    }
+}
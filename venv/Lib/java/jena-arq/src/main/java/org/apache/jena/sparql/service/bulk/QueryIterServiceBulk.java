@@ -0,0 +1,407 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.service.bulk;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import org.apache.jena.atlas.logging.Log;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.query.QueryExecException;
+import org.apache.jena.sparql.ARQConstants;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.OpAsQuery;
+import org.apache.jena.sparql.algebra.OpVars;
+import org.apache.jena.sparql.algebra.op.OpService;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.Rename;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingBuilder;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.iterator.QueryIter1;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper;
+import org.apache.jena.sparql.engine.iterator.QueryIterSingleton;
+import org.apache.jena.sparql.exec.RowSet;
+import org.apache.jena.sparql.exec.http.Service;
+import org.apache.jena.sparql.util.Context;
+
+/**
+ * The iterator for {@link ChainingServiceExecutorBulkConcurrent}.
+ * <p>
+ * Input bindings are read ahead, up to {@code batchSize * concurrency} of them,
+ * and their requests sent in blocks. Results are returned in the order of the input.
+ * Bindings that can not be sent in a VALUES block are passed to the rest of the chain
+ * when their turn comes.
+ */
+/*package*/ class QueryIterServiceBulk extends QueryIter1 {
+
+    /**
+     * The results for one binding of the variables in the SERVICE pattern.
+     * Keys and results use the names of the variables in the remote query, so a
+     * cached request can be used by a SERVICE pattern with other renamed variables.
+     */
+    private static class Request {
+        final List<Object> requestKey;
+        final Binding key;
+        final CompletableFuture<List<Binding>> results = new CompletableFuture<>();
+        // Number of input bindings, read and not yet returned, waiting for this request.
+        int waiting = 0;
+        boolean sent = false;
+
+        Request(List<Object> requestKey, Binding key) {
+            this.requestKey = requestKey;
+            this.key = key;
+        }
+    }
+
+    /** An input binding and its request; the request is null to use the chain. */
+    private static class Row {
+        final Binding binding;
+        final Request request;
+
+        Row(Binding binding, Request request) {
+            this.binding = binding;
+            this.request = request;
+        }
+    }
+
+    private final ChainingServiceExecutorBulkConcurrent owner;
+    private final OpService opService;
+    private final ServiceExecutorBulk chain;
+    private final String serviceURL;
+    private final Op opRemote;
+    // Remote variable to variable of the SERVICE pattern. Null for no renaming.
+    private final Map<Var, Var> varMapping;
+    // Variable of the SERVICE pattern to remote variable, for the renamed variables.
+    private final Map<Var, Var> remoteVars = new HashMap<>();
+    private final Var idxVar;
+    // Variables of the SERVICE pattern.
+    private final Set<Var> mentionedVars;
+    // Variables that can be sent in a VALUES block.
+    private final Set<Var> batchVars;
+    private final Context context;
+    private final int maxPending;
+
+    private final Deque<Row> pending = new ArrayDeque<>();
+    // Requests for the input bindings read ahead.
+    private final Map<List<Object>, Request> requests = new HashMap<>();
+    // Completed requests, for the query execution. Null for no cache.
+    private final Map<List<Object>, Request> cache;
+    // Requests not yet sent.
+    private List<Request> block = null;
+    private QueryIterator current = null;
+    private volatile boolean closed = false;
+
+    /*package*/ QueryIterServiceBulk(ChainingServiceExecutorBulkConcurrent owner, OpService opService, Set<Var> batchVars,
+                                     QueryIterator input, ExecutionContext execCxt, ServiceExecutorBulk chain) {
+        super(input, execCxt);
+        this.owner = owner;
+        this.opService = opService;
+        this.chain = chain;
+        this.serviceURL = opService.getService().getURI();
+        this.opRemote = Rename.reverseVarRename(opService.getSubOp(), true);
+        this.varMapping = Service.remoteVarMapping(opService, opRemote);
+        if ( varMapping != null )
+            varMapping.forEach((remoteVar, var) -> remoteVars.put(var, remoteVar));
+        this.mentionedVars = new HashSet<>(OpVars.mentionedVars(opService.getSubOp()));
+        this.batchVars = batchVars;
+        this.idxVar = allocIndexVar(opRemote);
+        this.context = execCxt.getContext();
+        this.maxPending = owner.getBatchSize() * owner.getConcurrency();
+        this.cache = owner.isCache() ? queryCache(context) : null;
+    }
+
+    /** The cache of requests, shared by all SERVICE calls in the query execution. */
+    @SuppressWarnings("unchecked")
+    private static Map<List<Object>, Request> queryCache(Context context) {
+        synchronized (context) {
+            Map<List<Object>, Request> map = (Map<List<Object>, Request>)context.get(ChainingServiceExecutorBulkConcurrent.symCache);
+            if ( map == null ) {
+                map = new ConcurrentHashMap<>();
+                context.set(ChainingServiceExecutorBulkConcurrent.symCache, map);
+            }
+            return map;
+        }
+    }
+
+    private static Var allocIndexVar(Op op) {
+        Collection<Var> vars = OpVars.mentionedVars(op);
+        String name = "__idx";
+        while ( vars.contains(Var.alloc(name)) )
+            name = name + "_";
+        return Var.alloc(name);
+    }
+
+    @Override
+    protected boolean hasNextBinding() {
+        for (;;) {
+            if ( current != null ) {
+                if ( current.hasNext() )
+                    return true;
+                current.close();
+                current = null;
+            }
+            if ( pending.isEmpty() )
+                readAhead();
+            Row row = pending.poll();
+            if ( row == null )
+                return false;
+            current = stage(row);
+            // Refill when there is room for a whole block.
+            if ( pending.size() + owner.getBatchSize() <= maxPending )
+                readAhead();
+        }
+    }
+
+    @Override
+    protected Binding moveToNextBinding() {
+        return current.next();
+    }
+
+    /**
+     * Read input bindings and send the requests for new keys in blocks.
+     * The last block is only sent when it is full, when the input has ended,
+     * or when it is needed for the next result.
+     */
+    private void readAhead() {
+        QueryIterator input = getInput();
+        while ( pending.size() < maxPending && input.hasNext() ) {
+            Binding binding = input.next();
+            Binding key = key(binding);
+            if ( key == null ) {
+                pending.add(new Row(binding, null));
+                continue;
+            }
+            List<Object> requestKey = List.of(serviceURL, opRemote, key);
+            Request request = requests.get(requestKey);
+            if ( request == null && cache != null ) {
+                request = cache.get(requestKey);
+                if ( request != null )
+                    requests.put(requestKey, request);
+            }
+            if ( request == null ) {
+                request = new Request(requestKey, key);
+                requests.put(requestKey, request);
+                if ( block == null )
+                    block = new ArrayList<>();
+                block.add(request);
+                if ( block.size() >= owner.getBatchSize() )
+                    send();
+            }
+            request.waiting++;
+            pending.add(new Row(binding, request));
+        }
+        if ( ! input.hasNext() )
+            send();
+    }
+
+    /**
+     * The part of the binding for the variables of the SERVICE pattern, using the
+     * names of the variables in the remote query.
+     * Returns null if the binding can not be sent in a VALUES block.
+     */
+    private Binding key(Binding binding) {
+        BindingBuilder builder = Binding.builder();
+        for ( Iterator<Var> iter = binding.vars() ; iter.hasNext() ; ) {
+            Var var = iter.next();
+            if ( ! mentionedVars.contains(var) )
+                continue;
+            Node value = binding.get(var);
+            // Blank nodes can not be written in VALUES.
+            if ( ! batchVars.contains(var) || value.isBlank() )
+                return null;
+            Var remoteVar = remoteVar(var);
+            if ( remoteVar == null )
+                return null;
+            builder.add(remoteVar, value);
+        }
+        return builder.build();
+    }
+
+    /**
+     * The name of a variable in the remote query. Returns null for a variable
+     * renamed for scope that does not appear under its original name.
+     */
+    private Var remoteVar(Var var) {
+        Var remoteVar = remoteVars.get(var);
+        if ( remoteVar != null )
+            return remoteVar;
+        if ( var.getName().contains(ARQConstants.allocVarScopeHiding) )
+            return null;
+        return var;
+    }
+
+    /** The results for an input binding. */
+    private QueryIterator stage(Row row) {
+        ExecutionContext execCxt = getExecContext();
+        if ( row.request == null )
+            return chain.createExecution(opService, QueryIterSingleton.create(row.binding, execCxt), execCxt);
+        Request request = row.request;
+        if ( ! request.sent )
+            send();
+        List<Binding> results;
+        try {
+            results = request.results.join();
+        } catch (CompletionException | CancellationException ex) {
+            Throwable cause = ( ex instanceof CompletionException ) ? ex.getCause() : ex;
+            if ( ! opService.getSilent() )
+                throw ( cause instanceof RuntimeException rex ) ? rex : new QueryExecException(cause);
+            Log.warn(this, "SERVICE " + NodeFmtLib.strTTL(opService.getService()) + " : " + cause.getMessage());
+            results = List.of(BindingFactory.empty());
+        } finally {
+            if ( --request.waiting == 0 )
+                requests.remove(request.requestKey);
+        }
+        Iterator<Binding> iter = results.stream().map(b -> merge(row.binding, local(b))).iterator();
+        return QueryIterPlainWrapper.create(iter, execCxt);
+    }
+
+    /** Add the remote results to the input binding; the input binding takes precedence. */
+    private static Binding merge(Binding parent, Binding result) {
+        if ( result.isEmpty() )
+            return parent;
+        BindingBuilder builder = Binding.builder(parent);
+        result.forEach((var, value) -> {
+            if ( ! builder.contains(var) )
+                builder.add(var, value);
+        });
+        return builder.build();
+    }
+
+    private void send() {
+        if ( block == null )
+            return;
+        List<Request> requestBlock = block;
+        block = null;
+        requestBlock.forEach(r -> r.sent = true);
+        owner.executor().execute(() -> execBlock(requestBlock));
+    }
+
+    /** Send one request for a block of keys. Runs in a pool thread. */
+    private void execBlock(List<Request> block) {
+        Semaphore limit = owner.endpointLimit(serviceURL);
+        try {
+            limit.acquire();
+        } catch (InterruptedException ex) {
+            block.forEach(r -> r.results.completeExceptionally(new QueryCancelledException()));
+            return;
+        }
+        try {
+            if ( closed ) {
+                block.forEach(r -> r.results.cancel(false));
+                return;
+            }
+            Service.checkServiceAllowed(context);
+            List<List<Binding>> results = exec(block);
+            for ( int i = 0 ; i < block.size() ; i++ ) {
+                Request request = block.get(i);
+                // Cached before it completes, so it is seen by any later SERVICE call.
+                if ( cache != null )
+                    cache.putIfAbsent(request.requestKey, request);
+                request.results.complete(results.get(i));
+            }
+        } catch (Throwable ex) {
+            block.forEach(r -> r.results.completeExceptionally(ex));
+        } finally {
+            limit.release();
+        }
+    }
+
+    private List<List<Binding>> exec(List<Request> block) {
+        Set<Var> vars = new LinkedHashSet<>();
+        vars.add(idxVar);
+        List<Binding> rows = new ArrayList<>(block.size());
+        for ( int i = 0 ; i < block.size() ; i++ ) {
+            Binding key = block.get(i).key;
+            key.vars().forEachRemaining(vars::add);
+            Node idx = NodeFactory.createLiteral(Integer.toString(i), XSDDatatype.XSDinteger);
+            rows.add(Binding.builder(key).add(idxVar, idx).build());
+        }
+        Query query = OpAsQuery.asQuery(opRemote);
+        if ( ! query.isQueryResultStar() )
+            query.addResultVar(idxVar);
+        query.setValuesDataBlock(new ArrayList<>(vars), rows);
+
+        List<List<Binding>> results = new ArrayList<>(block.size());
+        for ( int i = 0 ; i < block.size() ; i++ )
+            results.add(new ArrayList<>());
+        RowSet rowSet = Service.select(serviceURL, query, context);
+        try {
+            rowSet.forEachRemaining(row -> {
+                Node idx = row.get(idxVar);
+                if ( idx == null || ! idx.isLiteral() )
+                    throw new QueryExecException("SERVICE " + serviceURL + " : no index in result row");
+                int i = Integer.parseInt(idx.getLiteralLexicalForm());
+                results.get(i).add(removeIndex(row));
+            });
+        } finally {
+            rowSet.close();
+        }
+        return results;
+    }
+
+    private Binding removeIndex(Binding row) {
+        BindingBuilder builder = Binding.builder();
+        row.forEach((var, value) -> {
+            if ( ! var.equals(idxVar) )
+                builder.add(var, value);
+        });
+        return builder.build();
+    }
+
+    /** Map the variables of a remote result back to their names in the SERVICE pattern. */
+    private Binding local(Binding result) {
+        if ( varMapping == null )
+            return result;
+        BindingBuilder builder = Binding.builder();
+        result.forEach((var, value) -> {
+            if ( varMapping.containsKey(var) )
+                builder.add(varMapping.get(var), value);
+        });
+        return builder.build();
+    }
+
+    @Override
+    protected void requestSubCancel() {
+        closed = true;
+        if ( current != null )
+            current.cancel();
+    }
+
+    @Override
+    protected void closeSubIterator() {
+        closed = true;
+        if ( current != null ) {
+            current.close();
+            current = null;
+        }
+        pending.clear();
+    }
+}
@@ -46,6 +46,7 @@ import org.junit.runners.Suite ;
     // Thrift is done in the "thrift" package
     , TestParserFactory.class
     , TestCollectorStream.class
+    , TestParallelParserNTuples.class
     , TC_RIOT_RDFXML.class
 })
 
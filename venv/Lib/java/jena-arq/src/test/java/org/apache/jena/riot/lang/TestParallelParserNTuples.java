@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.riot.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.ErrorHandlerTestLib.ErrorHandlerEx;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.ErrorHandler;
+import org.apache.jena.riot.system.ParserProfile;
+import org.apache.jena.riot.system.RiotLib;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.util.IsoMatcher;
+import org.junit.Test;
+
+public class TestParallelParserNTuples {
+
+    private static String dataNT(int n) {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0 ; i < n ; i++ ) {
+            sb.append("<http://example/s").append(i).append("> <http://example/p> \"value ").append(i).append("\" .\n");
+            sb.append("_:b").append(i % 17).append(" <http://example/q> <http://example/o").append(i).append("> .\n");
+        }
+        return sb.toString();
+    }
+
+    private static String dataNQ(int n) {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0 ; i < n ; i++ ) {
+            sb.append("<http://example/s").append(i).append("> <http://example/p> \"").append(i).append("\" <http://example/g").append(i % 3).append("> .\n");
+            sb.append("_:b").append(i % 5).append(" <http://example/q> <http://example/o").append(i).append("> .\n");
+        }
+        return sb.toString();
+    }
+
+    private static InputStream input(String string) {
+        return new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Function<ErrorHandler, ParserProfile> profileMaker() {
+        UUID seed = UUID.randomUUID();
+        return eh -> RiotLib.createParserProfile(RiotLib.factoryRDF(LabelToNode.createScopeByDocumentHash(seed)), eh, false);
+    }
+
+    private static List<Triple> parseTriples(String data, int parallelism, boolean ordered, int chunkSize) {
+        CollectorStreamTriples output = new CollectorStreamTriples();
+        ParallelParserNTuples parser = new ParallelParserNTuples(Lang.NTRIPLES, parallelism, ordered, chunkSize, new ErrorHandlerEx(), profileMaker());
+        parser.parse(input(data), output);
+        return output.getCollected();
+    }
+
+    @Test public void parallel_nt_ordered() {
+        String data = dataNT(500);
+        Graph expected = RDFParser.fromString(data, Lang.NTRIPLES).toGraph();
+        List<Triple> triples = parseTriples(data, 4, true, 1000);
+        assertEquals(1000, triples.size());
+        // Same order as the input.
+        for ( int i = 0 ; i < 500 ; i++ )
+            assertEquals("http://example/s" + i, triples.get(2 * i).getSubject().getURI());
+        Graph actual = GraphFactory.createDefaultGraph();
+        triples.forEach(actual::add);
+        assertTrue(IsoMatcher.isomorphic(expected, actual));
+    }
+
+    @Test public void parallel_nt_unordered() {
+        String data = dataNT(500);
+        Graph expected = RDFParser.fromString(data, Lang.NTRIPLES).toGraph();
+        List<Triple> triples = parseTriples(data, 4, false, 1000);
+        assertEquals(1000, triples.size());
+        Graph actual = GraphFactory.createDefaultGraph();
+        triples.forEach(actual::add);
+        assertTrue(IsoMatcher.isomorphic(expected, actual));
+    }
+
+    @Test public void parallel_nt_blank_nodes() {
+        // The same label in different chunks is the same blank node.
+        List<Triple> triples = parseTriples(dataNT(500), 4, true, 1000);
+        HashSet<Node> bnodes = new HashSet<>();
+        triples.stream().map(Triple::getSubject).filter(Node::isBlank).forEach(bnodes::add);
+        assertEquals(17, bnodes.size());
+    }
+
+    @Test public void parallel_nt_blank_nodes_per_parse() {
+        // Different parser runs have different blank nodes.
+        String data = "_:b <http://example/p> <http://example/o> .\n";
+        Graph g1 = RDFParser.fromString(data, Lang.NTRIPLES).toGraph();
+        Graph g2 = RDFParser.source(input(data)).lang(Lang.NTRIPLES).parallel(2).toGraph();
+        assertNotEquals(g1.find().next().getSubject(), g2.find().next().getSubject());
+    }
+
+    @Test public void parallel_nt_long_line() {
+        // Lines longer than the chunk size.
+        String data = dataNT(20);
+        List<Triple> triples = parseTriples(data, 2, true, 10);
+        assertEquals(40, triples.size());
+    }
+
+    @Test public void parallel_nt_no_final_newline() {
+        String data = "<http://example/s> <http://example/p> \"1\" .\n<http://example/s> <http://example/p> \"2\" .";
+        List<Triple> triples = parseTriples(data, 2, true, 50);
+        assertEquals(2, triples.size());
+    }
+
+    @Test public void parallel_nt_empty() {
+        List<Triple> triples = parseTriples("", 2, true, 50);
+        assertTrue(triples.isEmpty());
+    }
+
+    @Test public void parallel_nq() {
+        String data = dataNQ(300);
+        DatasetGraph expected = RDFParser.fromString(data, Lang.NQUADS).toDatasetGraph();
+        DatasetGraph actual = RDFParser.source(input(data)).lang(Lang.NQUADS).parallel(3, false).toDatasetGraph();
+        assertTrue(IsoMatcher.isomorphic(expected, actual));
+    }
+
+    @Test public void parallel_nq_collect() {
+        CollectorStreamQuads output = new CollectorStreamQuads();
+        ParallelParserNTuples parser = new ParallelParserNTuples(Lang.NQUADS, 3, true, 500, new ErrorHandlerEx(), profileMaker());
+        parser.parse(input(dataNQ(300)), output);
+        List<Quad> quads = output.getCollected();
+        assertEquals(600, quads.size());
+        assertEquals("http://example/g2", quads.get(4).getGraph().getURI());
+        assertTrue(quads.get(1).isDefaultGraph());
+    }
+
+    @Test public void parallel_parser_builder() {
+        String data = dataNT(500);
+        Graph expected = RDFParser.fromString(data, Lang.NTRIPLES).toGraph();
+        Graph actual = RDFParser.source(input(data)).lang(Lang.NTRIPLES).parallel(4).toGraph();
+        assertTrue(IsoMatcher.isomorphic(expected, actual));
+    }
+
+    @Test public void parallel_parser_turtle() {
+        // Not parallel - parsed as usual.
+        String data = "PREFIX : <http://example/>\n:s :p :o1 ,\n  :o2 .";
+        Graph graph = RDFParser.source(input(data)).lang(Lang.TURTLE).parallel(4).toGraph();
+        assertEquals(2, graph.size());
+    }
+
+    @Test public void parallel_error_line() {
+        List<Long> lines = new ArrayList<>();
+        ErrorHandler errorHandler = new ErrorHandlerEx() {
+            @Override
+            public void error(String message, long line, long col) {
+                lines.add(line);
+                super.error(message, line, col);
+            }
+
+            @Override
+            public void fatal(String message, long line, long col) {
+                lines.add(line);
+                super.fatal(message, line, col);
+            }
+        };
+        String data = dataNT(100) + "<http://example/s> <http://example/p> .\n" + dataNT(100);
+        ParallelParserNTuples parser = new ParallelParserNTuples(Lang.NTRIPLES, 4, true, 500, errorHandler, profileMaker());
+        assertThrows(RuntimeException.class, ()->parser.parse(input(data), new CollectorStreamTriples()));
+        assertEquals(1, lines.size());
+        assertEquals(201L, (long)lines.get(0));
+    }
+
+    @Test public void parallel_error_handler_serialized() {
+        // Not thread-safe: checks that it is called one at a time.
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        List<Long> lines = new ArrayList<>();
+        ErrorHandler errorHandler = new ErrorHandlerEx() {
+            @Override
+            public void warning(String message, long line, long col) {
+                if ( active.incrementAndGet() > 1 )
+                    overlaps.incrementAndGet();
+                lines.add(line);
+                Thread.yield();
+                active.decrementAndGet();
+            }
+        };
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0 ; i < 1000 ; i++ )
+            sb.append("<http://example/s").append(i).append("> <http://example/p> \"x\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n");
+        UUID seed = UUID.randomUUID();
+        Function<ErrorHandler, ParserProfile> checking =
+            eh -> RiotLib.createParserProfile(RiotLib.factoryRDF(LabelToNode.createScopeByDocumentHash(seed)), eh, true);
+        ParallelParserNTuples parser = new ParallelParserNTuples(Lang.NTRIPLES, 4, true, 500, errorHandler, checking);
+        parser.parse(input(sb.toString()), new CollectorStreamTriples());
+        assertEquals(0, overlaps.get());
+        assertEquals(1000, lines.size());
+    }
+
+    @Test public void parallel_bad_lang() {
+        assertThrows(Exception.class, ()->new ParallelParserNTuples(Lang.TURTLE, 4, true, 500, new ErrorHandlerEx(), profileMaker()));
+        assertFalse(ParallelParserNTuples.canParse(Lang.TRIG));
+    }
+}
@@ -24,6 +24,7 @@ import org.junit.runners.Suite ;
 @RunWith(Suite.class)
 @Suite.SuiteClasses( {
     TestQueryIterSort.class
+    , TestQueryIterGroup.class
     , TestDistinctMem.class
     , TestDistinctDataBag.class 
     , TestDistinctDataBagLimited.class 
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.atlas.data.DataBagExaminer;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.core.VarExprList;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.exec.QueryExec;
+import org.apache.jena.sparql.exec.RowSetRewindable;
+import org.apache.jena.sparql.expr.ExprAggregator;
+import org.apache.jena.sparql.expr.ExprVar;
+import org.apache.jena.sparql.expr.aggregate.AggCount;
+import org.apache.jena.sparql.expr.aggregate.AggSum;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.sparql.util.Context;
+import org.apache.jena.sparql.util.NodeFactoryExtra;
+import org.junit.Test;
+
+public class TestQueryIterGroup {
+
+    private static DatasetGraph data() {
+        DatasetGraph dsg = DatasetGraphFactory.createTxnMem();
+        Graph graph = dsg.getDefaultGraph();
+        Node p = SSE.parseNode(":p");
+        Node q = SSE.parseNode(":q");
+        for ( int i = 0 ; i < 200 ; i++ ) {
+            Node s = SSE.parseNode(":s" + i);
+            graph.add(s, p, NodeFactoryExtra.intToNode(i % 37));
+            graph.add(s, q, NodeFactory.createLiteralString("v" + (i % 11)));
+        }
+        return dsg;
+    }
+
+    @Test public void group_spill_01() {
+        test("SELECT ?o (count(*) AS ?c) (sum(?o) AS ?sum) { ?s :p ?o } GROUP BY ?o");
+    }
+
+    @Test public void group_spill_02() {
+        test("SELECT ?o ?v (count(*) AS ?c) (min(?s) AS ?min) (max(?s) AS ?max) (avg(?o) AS ?avg) { ?s :p ?o ; :q ?v } GROUP BY ?o ?v");
+    }
+
+    @Test public void group_spill_03() {
+        // No aggregators.
+        test("SELECT ?v { ?s :q ?v } GROUP BY ?v");
+    }
+
+    @Test public void group_spill_04() {
+        // Group by expression, DISTINCT aggregate.
+        test("SELECT ?k (count(DISTINCT ?v) AS ?c) (sample(?k) AS ?sample) { ?s :p ?o ; :q ?v } GROUP BY (?o > 10 AS ?k)");
+    }
+
+    @Test public void group_spill_05() {
+        // Unbound group key.
+        test("SELECT ?z (count(*) AS ?c) { ?s :p ?o OPTIONAL { ?s :r ?z } } GROUP BY ?z");
+    }
+
+    @Test public void group_spill_06() {
+        // No input
+        test("SELECT ?o (count(*) AS ?c) { ?s :noSuchProperty ?o } GROUP BY ?o");
+    }
+
+    @Test public void group_spill_07() {
+        // No GROUP BY
+        test("SELECT (count(*) AS ?c) (sum(?o) AS ?sum) { ?s :p ?o }");
+    }
+
+    private static void test(String queryString) {
+        String qs = "PREFIX : <http://example/> " + queryString;
+        DatasetGraph dsg = data();
+        RowSetRewindable expected = QueryExec.dataset(dsg).query(qs).select().rewindable();
+        RowSetRewindable actual = QueryExec.dataset(dsg).query(qs).set(ARQ.spillToDiskThreshold, 10L).select().rewindable();
+        boolean b = ResultSetCompare.equalsByTerm(expected, actual);
+        assertTrue(b);
+    }
+
+    @Test public void group_iterator_01() {
+        Var varKey = Var.alloc("k");
+        Var varCount = Var.alloc("c");
+        Var varSum = Var.alloc("s");
+        List<Binding> input = new ArrayList<>();
+        for ( int i = 0 ; i < 100 ; i++ )
+            input.add(BindingFactory.binding(varKey, NodeFactoryExtra.intToNode(i % 7)));
+
+        Context context = new Context();
+        context.set(ARQ.spillToDiskThreshold, 10L);
+        ExecutionContext execCxt = new ExecutionContext(context, null, null, null);
+
+        VarExprList groupVars = new VarExprList();
+        groupVars.add(varKey);
+        List<ExprAggregator> aggregators = List.of(new ExprAggregator(varCount, new AggCount()),
+                                                   new ExprAggregator(varSum, new AggSum(new ExprVar(varKey))));
+        QueryIterator qIter = QueryIterPlainWrapper.create(input.iterator(), execCxt);
+        QueryIterGroup qIterGroup = new QueryIterGroup(qIter, groupVars, aggregators, execCxt);
+        assertNotNull(qIterGroup.db);
+
+        assertTrue(qIterGroup.hasNext());
+        assertTrue(DataBagExaminer.countTemporaryFiles(qIterGroup.db) > 0);
+        List<Binding> results = new ArrayList<>();
+        qIterGroup.forEachRemaining(results::add);
+        assertEquals(7, results.size());
+
+        long total = 0;
+        for ( Binding b : results ) {
+            int key = NodeFactoryExtra.nodeToInt(b.get(varKey));
+            int count = NodeFactoryExtra.nodeToInt(b.get(varCount));
+            int sum = NodeFactoryExtra.nodeToInt(b.get(varSum));
+            assertEquals(count * key, sum);
+            total += count;
+        }
+        assertEquals(100, total);
+        qIterGroup.close();
+        assertEquals(0, DataBagExaminer.countTemporaryFiles(qIterGroup.db));
+    }
+
+    @Test public void group_iterator_02() {
+        // Not spilling.
+        ExecutionContext execCxt = new ExecutionContext(new Context(), null, null, null);
+        Var varKey = Var.alloc("k");
+        QueryIterator qIter = QueryIterPlainWrapper.create(List.<Binding>of().iterator(), execCxt);
+        VarExprList groupVars = new VarExprList();
+        groupVars.add(varKey);
+        QueryIterGroup qIterGroup = new QueryIterGroup(qIter, groupVars, List.of(), execCxt);
+        assertNull(qIterGroup.db);
+        qIterGroup.close();
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.join;
+
+import static org.junit.Assert.assertEquals ;
+import static org.junit.Assert.assertTrue ;
+
+import java.util.ArrayList ;
+import java.util.List ;
+
+import org.apache.jena.query.ARQ ;
+import org.apache.jena.sparql.algebra.Table ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.binding.BindingFactory ;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper ;
+import org.apache.jena.sparql.expr.ExprList ;
+import org.apache.jena.sparql.util.Context ;
+import org.apache.jena.sparql.util.NodeFactoryExtra ;
+import org.junit.Test ;
+
+/** Hash join, with the probe table partitions spilled to disk. */
+public class TestHashJoinSpill extends AbstractTestInnerJoin {
+
+    static ExecutionContext execCxt(long threshold) {
+        Context context = new Context() ;
+        context.set(ARQ.spillToDiskThreshold, threshold) ;
+        return new ExecutionContext(context, null, null, null) ;
+    }
+
+    @Override
+    public QueryIterator join(JoinKey joinKey, Table left, Table right, ExprList conditions) {
+        ExecutionContext execCxt = execCxt(0) ;
+        return Join.hashJoin(joinKey, left.iterator(execCxt), right.iterator(execCxt), execCxt) ;
+    }
+
+    @Test public void hashJoin_spill_stats() {
+        Var x = Var.alloc("x") ;
+        Var y = Var.alloc("y") ;
+        Var z = Var.alloc("z") ;
+        List<Binding> left = new ArrayList<>() ;
+        List<Binding> right = new ArrayList<>() ;
+        for ( int i = 0 ; i < 1000 ; i++ ) {
+            left.add(BindingFactory.binding(x, NodeFactoryExtra.intToNode(i), y, NodeFactoryExtra.intToNode(i % 10))) ;
+            right.add(BindingFactory.binding(x, NodeFactoryExtra.intToNode(i % 500), z, NodeFactoryExtra.intToNode(i))) ;
+        }
+        ExecutionContext execCxt = execCxt(100) ;
+        AbstractIterHashJoin qIter = (AbstractIterHashJoin)QueryIterHashJoin.create(JoinKey.create(x),
+                                                                                   QueryIterPlainWrapper.create(left.iterator(), execCxt),
+                                                                                   QueryIterPlainWrapper.create(right.iterator(), execCxt),
+                                                                                   execCxt) ;
+        assertEquals(1000, qIter.getCountProbeRows()) ;
+        assertTrue(qIter.getCountPartitionsSpilled() > 0) ;
+        long count = 0 ;
+        while ( qIter.hasNext() ) {
+            Binding b = qIter.next() ;
+            assertEquals(b.get(x), NodeFactoryExtra.intToNode(NodeFactoryExtra.nodeToInt(b.get(z)) % 500)) ;
+            count++ ;
+        }
+        assertEquals(1000, count) ;
+        assertTrue(qIter.getBytesSpilled() > 0) ;
+    }
+
+    @Test public void hashJoin_spill_repartition() {
+        // The partitions on disk are over the threshold and are split again.
+        Var x = Var.alloc("x") ;
+        Var z = Var.alloc("z") ;
+        List<Binding> left = new ArrayList<>() ;
+        List<Binding> right = new ArrayList<>() ;
+        for ( int i = 0 ; i < 1000 ; i++ ) {
+            left.add(BindingFactory.binding(x, NodeFactoryExtra.intToNode(i))) ;
+            right.add(BindingFactory.binding(x, NodeFactoryExtra.intToNode(i % 500), z, NodeFactoryExtra.intToNode(i))) ;
+        }
+        ExecutionContext execCxt = execCxt(10) ;
+        AbstractIterHashJoin qIter = (AbstractIterHashJoin)QueryIterHashJoin.create(JoinKey.create(x),
+                                                                                   QueryIterPlainWrapper.create(left.iterator(), execCxt),
+                                                                                   QueryIterPlainWrapper.create(right.iterator(), execCxt),
+                                                                                   execCxt) ;
+        long count = 0 ;
+        while ( qIter.hasNext() ) {
+            Binding b = qIter.next() ;
+            assertEquals(b.get(x), NodeFactoryExtra.intToNode(NodeFactoryExtra.nodeToInt(b.get(z)) % 500)) ;
+            count++ ;
+        }
+        assertEquals(1000, count) ;
+        assertTrue(qIter.getCountPartitionsSpilled() > 16) ;
+    }
+
+    @Test public void hashJoin_spill_nokey() {
+        // Probe rows without the join key are moved to disk.
+        Var x = Var.alloc("x") ;
+        Var y = Var.alloc("y") ;
+        List<Binding> left = new ArrayList<>() ;
+        List<Binding> right = new ArrayList<>() ;
+        for ( int i = 0 ; i < 100 ; i++ ) {
+            left.add(BindingFactory.binding(y, NodeFactoryExtra.intToNode(i))) ;
+            right.add(BindingFactory.binding(x, NodeFactoryExtra.intToNode(i))) ;
+        }
+        left.add(BindingFactory.binding(x, NodeFactoryExtra.intToNode(0))) ;
+        ExecutionContext execCxt = execCxt(10) ;
+        AbstractIterHashJoin qIter = (AbstractIterHashJoin)QueryIterHashJoin.create(JoinKey.create(x),
+                                                                                   QueryIterPlainWrapper.create(left.iterator(), execCxt),
+                                                                                   QueryIterPlainWrapper.create(right.iterator(), execCxt),
+                                                                                   execCxt) ;
+        assertTrue(qIter.getCountPartitionsSpilled() > 0) ;
+        long count = 0 ;
+        for ( ; qIter.hasNext() ; qIter.next() )
+            count++ ;
+        assertEquals(100 * 100 + 1, count) ;
+        assertTrue(qIter.getBytesSpilled() > 0) ;
+        // The probe rows on disk are read once for all the stream rows.
+        assertEquals(1, qIter.getCountDiskPasses()) ;
+    }
+
+    @Test public void hashJoin_spill_none() {
+        // Below the threshold.
+        Var x = Var.alloc("x") ;
+        List<Binding> rows = new ArrayList<>() ;
+        for ( int i = 0 ; i < 10 ; i++ )
+            rows.add(BindingFactory.binding(x, NodeFactoryExtra.intToNode(i))) ;
+        ExecutionContext execCxt = execCxt(100) ;
+        AbstractIterHashJoin qIter = (AbstractIterHashJoin)QueryIterHashJoin.create(JoinKey.create(x),
+                                                                                   QueryIterPlainWrapper.create(rows.iterator(), execCxt),
+                                                                                   QueryIterPlainWrapper.create(rows.iterator(), execCxt),
+                                                                                   execCxt) ;
+        long count = 0 ;
+        for ( ; qIter.hasNext() ; qIter.next() )
+            count++ ;
+        assertEquals(10, count) ;
+        assertEquals(0, qIter.getCountPartitionsSpilled()) ;
+        assertEquals(0, qIter.getBytesSpilled()) ;
+    }
+}
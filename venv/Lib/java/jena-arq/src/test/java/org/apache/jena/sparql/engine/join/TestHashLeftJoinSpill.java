@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.engine.join;
+
+import static org.junit.Assert.assertEquals ;
+import static org.junit.Assert.assertTrue ;
+
+import java.util.ArrayList ;
+import java.util.List ;
+
+import org.apache.jena.sparql.algebra.Table ;
+import org.apache.jena.sparql.core.Var ;
+import org.apache.jena.sparql.engine.ExecutionContext ;
+import org.apache.jena.sparql.engine.QueryIterator ;
+import org.apache.jena.sparql.engine.binding.Binding ;
+import org.apache.jena.sparql.engine.binding.BindingFactory ;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper ;
+import org.apache.jena.sparql.expr.ExprList ;
+import org.apache.jena.sparql.util.NodeFactoryExtra ;
+import org.junit.Test ;
+
+/** Hash left join, with the probe table partitions spilled to disk. */
+public class TestHashLeftJoinSpill extends AbstractTestLeftJoin {
+    @Override
+    public QueryIterator join(JoinKey joinKey, Table left, Table right, ExprList conditions) {
+        ExecutionContext execCxt = TestHashJoinSpill.execCxt(0) ;
+        return QueryIterHashLeftJoin_Right.create(joinKey, left.iterator(execCxt), right.iterator(execCxt), conditions, execCxt) ;
+    }
+
+    @Test public void hashLeftJoin_spill_nokey() {
+        // Probe rows without the join key are moved to disk.
+        // Stream rows with no match are found after reading them.
+        Var x = Var.alloc("x") ;
+        Var y = Var.alloc("y") ;
+        Var z = Var.alloc("z") ;
+        List<Binding> left = new ArrayList<>() ;
+        List<Binding> right = new ArrayList<>() ;
+        for ( int i = 0 ; i < 100 ; i++ )
+            left.add(BindingFactory.binding(x, NodeFactoryExtra.intToNode(i), y, NodeFactoryExtra.intToNode(i))) ;
+        for ( int i = 0 ; i < 50 ; i++ )
+            right.add(BindingFactory.binding(y, NodeFactoryExtra.intToNode(i))) ;
+        for ( int i = 0 ; i < 10 ; i++ )
+            right.add(BindingFactory.binding(x, NodeFactoryExtra.intToNode(i), z, NodeFactoryExtra.intToNode(i))) ;
+        ExecutionContext execCxt = TestHashJoinSpill.execCxt(10) ;
+        AbstractIterHashJoin qIter = (AbstractIterHashJoin)QueryIterHashLeftJoin_Right.create(JoinKey.create(x),
+                                                                                             QueryIterPlainWrapper.create(left.iterator(), execCxt),
+                                                                                             QueryIterPlainWrapper.create(right.iterator(), execCxt),
+                                                                                             null, execCxt) ;
+        assertTrue(qIter.getCountPartitionsSpilled() > 0) ;
+        long count = 0 ;
+        long countMatchZ = 0 ;
+        long countNoMatch = 0 ;
+        while ( qIter.hasNext() ) {
+            Binding b = qIter.next() ;
+            count++ ;
+            if ( b.contains(z) )
+                countMatchZ++ ;
+            else if ( NodeFactoryExtra.nodeToInt(b.get(y)) >= 50 )
+                countNoMatch++ ;
+        }
+        // 0-9: two matches, 10-49: one match, 50-99: no match.
+        assertEquals(20 + 40 + 50, count) ;
+        assertEquals(10, countMatchZ) ;
+        assertEquals(50, countNoMatch) ;
+        assertTrue(qIter.getCountDiskPasses() > 0) ;
+        assertTrue(qIter.getCountDiskPasses() < 100) ;
+    }
+}
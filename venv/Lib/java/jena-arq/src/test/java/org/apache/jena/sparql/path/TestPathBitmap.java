@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.sparql.path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.atlas.lib.StrUtils;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.GraphView;
+import org.apache.jena.sparql.exec.QueryExec;
+import org.apache.jena.sparql.exec.RowSetMem;
+import org.apache.jena.sparql.exec.RowSetRewindable;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.graph.GraphWrapper;
+import org.apache.jena.sparql.path.eval.PathClosureCache;
+import org.apache.jena.sparql.path.eval.PathEval;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.sparql.util.Context;
+import org.apache.jena.sparql.util.graph.GraphUtils;
+import org.apache.jena.system.Txn;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.junit.Test;
+
+/** Path evaluation with {@link ARQ#pathEvalBitmap} gives the same results as the general path engine. */
+public class TestPathBitmap {
+    static String prefix = "http://example/";
+    static String prefixes = "((: <"+prefix+">))";
+
+    // Loops, diamonds and a self loop.
+    static Graph graph1 = SSE.parseGraph(StrUtils.strjoinNL(
+        "(prefix "+prefixes,
+        "  (graph",
+        "     (:x :p :y)",
+        "     (:y :p :z)",
+        "     (:z :p :x)",
+        "     (:x :p :a)",
+        "     (:a :p 123)",
+        "     (:x :q :y1)",
+        "     (:x :q :y2)",
+        "     (:y1 :q :z)",
+        "     (:y2 :q :z)",
+        "     (:z :q :z)",
+        "     (:z :r :x)",
+        "))"));
+
+    static Graph graph2 = randomGraph(60, 120, 0x5EED);
+
+    static String[] paths = {
+        "(path+ :p)", "(path* :p)",
+        "(path+ (rev :p))", "(path* (rev :p))",
+        "(reverse (path+ :p))", "(reverse (path* :q))",
+        "(path+ :q)", "(path* :q)",
+        "(seq :r (path+ :p))", "(seq (path* :q) :p)",
+        "(path+ :unknown)", "(path* :unknown)"
+    };
+
+    private static Graph randomGraph(int nodes, int links, long seed) {
+        Random random = new Random(seed);
+        Graph graph = GraphFactory.createDefaultGraph();
+        Node p = NodeFactory.createURI(prefix+"p");
+        Node q = NodeFactory.createURI(prefix+"q");
+        for ( int i = 0 ; i < links ; i++ ) {
+            Node s = NodeFactory.createURI(prefix+"n"+random.nextInt(nodes));
+            Node o = NodeFactory.createURI(prefix+"n"+random.nextInt(nodes));
+            graph.add(Triple.create(s, random.nextInt(4) == 0 ? q : p, o));
+        }
+        return graph;
+    }
+
+    private static Context context(boolean bitmap, PathClosureCache cache) {
+        Context context = ARQ.getContext().copy();
+        context.set(ARQ.pathEvalBitmap, bitmap);
+        if ( cache != null )
+            context.set(ARQ.pathClosureCache, cache);
+        return context;
+    }
+
+    @Test public void pathBitmap_eval_1()       { testEval(graph1, null); }
+    @Test public void pathBitmap_eval_2()       { testEval(graph2, null); }
+    @Test public void pathBitmap_eval_cache_1() { testEval(graph1, new PathClosureCache()); }
+    @Test public void pathBitmap_eval_cache_2() { testEval(graph2, new PathClosureCache()); }
+
+    private static void testEval(Graph graph, PathClosureCache cache) {
+        Context cxt1 = context(false, null);
+        Context cxt2 = context(true, cache);
+        List<Node> starts = Iter.toList(GraphUtils.allNodes(graph));
+        starts.add(NodeFactory.createURI(prefix+"notInGraph"));
+        for ( String pathStr : paths ) {
+            Path path = SSE.parsePath("(prefix "+prefixes+" "+pathStr+")");
+            for ( Node start : starts ) {
+                List<Node> expected = Iter.toList(PathEval.eval(graph, start, path, cxt1));
+                List<Node> actual = Iter.toList(PathEval.eval(graph, start, path, cxt2));
+                assertSameNodes(pathStr+" from "+start, expected, actual);
+                expected = Iter.toList(PathEval.evalReverse(graph, start, path, cxt1));
+                actual = Iter.toList(PathEval.evalReverse(graph, start, path, cxt2));
+                assertSameNodes("Reverse "+pathStr+" from "+start, expected, actual);
+            }
+        }
+    }
+
+    private static void assertSameNodes(String label, List<Node> expected, List<Node> actual) {
+        // Compare as multisets.
+        Comparator<Node> order = Comparator.comparing(Node::toString);
+        expected.sort(order);
+        actual.sort(order);
+        assertEquals(label, expected, actual);
+    }
+
+    @Test public void pathBitmap_query_1() { testQuery(graph1, "SELECT * { ?s :p+ ?o }"); }
+    @Test public void pathBitmap_query_2() { testQuery(graph1, "SELECT * { ?s :p* ?o }"); }
+    @Test public void pathBitmap_query_3() { testQuery(graph1, "SELECT * { ?s ^:q+ ?o }"); }
+    @Test public void pathBitmap_query_4() { testQuery(graph1, "SELECT * { ?s :q* ?s }"); }
+    @Test public void pathBitmap_query_5() { testQuery(graph1, "SELECT * { ?s :r ?x . ?x :p+ ?o }"); }
+    @Test public void pathBitmap_query_6() { testQuery(graph2, "SELECT * { ?s :p+ ?o }"); }
+    @Test public void pathBitmap_query_7() { testQuery(graph2, "SELECT * { ?s (^:q)* ?o }"); }
+    @Test public void pathBitmap_query_8() { testQuery(graph2, "SELECT * { ?s :p+ ?o . ?o :q ?z }"); }
+
+    private static void testQuery(Graph graph, String queryString) {
+        String qs = "PREFIX : <"+prefix+"> "+queryString;
+        RowSetRewindable expected = RowSetMem.create(QueryExec.graph(graph).query(qs).select());
+        RowSetRewindable actual1 = RowSetMem.create(QueryExec.graph(graph).query(qs).set(ARQ.pathEvalBitmap, true).select());
+        RowSetRewindable actual2 = RowSetMem.create(QueryExec.graph(graph).query(qs)
+                                                    .set(ARQ.pathEvalBitmap, true)
+                                                    .set(ARQ.pathClosureCache, new PathClosureCache())
+                                                    .select());
+        assertTrue(expected.size() > 0);
+        assertTrue(queryString, ResultSetCompare.equalsByTerm(expected, actual1));
+        expected.reset();
+        assertTrue(queryString, ResultSetCompare.equalsByTerm(expected, actual2));
+    }
+
+    @Test public void pathBitmap_cache_1() {
+        Graph graph = SSE.parseGraph("(graph (:a :p :b) (:b :p :c))");
+        PathClosureCache cache = new PathClosureCache();
+        Context cxt = context(true, cache);
+        Path path = SSE.parsePath("(path+ :p)");
+        Node a = SSE.parseNode(":a");
+        assertEquals(2, Iter.count(PathEval.eval(graph, a, path, cxt)));
+        assertEquals(1, Iter.count(PathEval.eval(graph, SSE.parseNode(":b"), path, cxt)));
+        // Built once.
+        assertEquals(1, cache.getBuildCount());
+
+        graph.add(SSE.parseTriple("(:c :p :d)"));
+        assertEquals(3, Iter.count(PathEval.eval(graph, a, path, cxt)));
+        graph.delete(SSE.parseTriple("(:a :p :b)"));
+        assertEquals(0, Iter.count(PathEval.eval(graph, a, path, cxt)));
+        assertEquals(3, cache.getBuildCount());
+    }
+
+    @Test public void pathBitmap_cache_2() {
+        Graph graph = SSE.parseGraph("(graph (:a :p :b) (:b :p :c))");
+        PathClosureCache cache = new PathClosureCache();
+        Context cxt = context(true, cache);
+        Path path = SSE.parsePath("(path* :p)");
+        Node a = SSE.parseNode(":a");
+        assertEquals(3, Iter.count(PathEval.eval(graph, a, path, cxt)));
+        graph.clear();
+        assertEquals(1, Iter.count(PathEval.eval(graph, a, path, cxt)));
+        cache.invalidate();
+        assertEquals(1, Iter.count(PathEval.eval(graph, a, path, cxt)));
+        assertEquals(3, cache.getBuildCount());
+    }
+
+    @Test public void pathBitmap_cache_3() {
+        // The graph changes while the index is being built.
+        Graph base = SSE.parseGraph("(graph (:a :p :b) (:b :p :c))");
+        AtomicBoolean change = new AtomicBoolean(true);
+        Graph graph = new GraphWrapper(base) {
+            @Override
+            public ExtendedIterator<Triple> find(Node s, Node p, Node o) {
+                if ( change.getAndSet(false) )
+                    base.add(SSE.parseTriple("(:c :p :d)"));
+                return super.find(s, p, o);
+            }
+        };
+        PathClosureCache cache = new PathClosureCache();
+        Context cxt = context(true, cache);
+        Path path = SSE.parsePath("(path+ :p)");
+        Node a = SSE.parseNode(":a");
+        assertEquals(3, Iter.count(PathEval.eval(graph, a, path, cxt)));
+        // Not kept, so built again, then kept.
+        assertEquals(3, Iter.count(PathEval.eval(graph, a, path, cxt)));
+        assertEquals(3, Iter.count(PathEval.eval(graph, a, path, cxt)));
+        assertEquals(2, cache.getBuildCount());
+    }
+
+    @Test public void pathBitmap_cache_4() {
+        // A graph of a transactional dataset is changed through the dataset.
+        DatasetGraph dsg = DatasetGraphFactory.createTxnMem();
+        Txn.executeWrite(dsg, ()->{
+            dsg.add(SSE.parseQuad("(_ :a :p :b)"));
+            dsg.add(SSE.parseQuad("(_ :b :p :c)"));
+        });
+        Graph graph = dsg.getDefaultGraph();
+        assertFalse(PathClosureCache.isCacheable(graph));
+        PathClosureCache cache = new PathClosureCache();
+        Context cxt = context(true, cache);
+        Path path = SSE.parsePath("(path+ :p)");
+        Node a = SSE.parseNode(":a");
+        Txn.executeRead(dsg, ()->assertEquals(2, Iter.count(PathEval.eval(graph, a, path, cxt))));
+        Txn.executeWrite(dsg, ()->dsg.add(SSE.parseQuad("(_ :c :p :d)")));
+        Txn.executeRead(dsg, ()->assertEquals(3, Iter.count(PathEval.eval(graph, a, path, cxt))));
+        // Not kept.
+        assertEquals(2, cache.getBuildCount());
+    }
+
+    @Test public void pathBitmap_cache_5() {
+        Graph graph = SSE.parseGraph("(graph (:a :p :b))");
+        assertTrue(PathClosureCache.isCacheable(graph));
+        assertFalse(PathClosureCache.isCacheable(GraphView.createDefaultGraph(DatasetGraphFactory.create(graph))));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.mem2.GraphMem2Fast;
+import org.apache.jena.mem2.GraphMem2Legacy;
+import org.apache.jena.mem2.GraphMem2Roaring;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.util.NodeFactoryExtra;
+
+/**
+ * Synthetic data for the benchmarks.
+ * <p>
+ * The data is generated from a seeded {@link Random} so the same arguments always
+ * give the same data. The shape is loosely that of typical RDF data: there are
+ * about 8 triples per subject, a small number of predicates, and the objects are a
+ * mix of links to other subjects, integers, strings and language tagged strings.
+ */
+public class BenchmarkData {
+    public static final String NS   = "http://example/";
+    public static final long   SEED = 0x5EED;
+
+    private static final int PREDICATES = 16;
+
+    /** Create {@code count} triples. */
+    public static List<Triple> triples(int count) {
+        return triples(count, SEED);
+    }
+
+    /** Create {@code count} triples. */
+    public static List<Triple> triples(int count, long seed) {
+        Random random = new Random(seed);
+        int subjects = Math.max(1, count / 8);
+        List<Triple> triples = new ArrayList<>(count);
+        for ( int i = 0 ; i < count ; i++ ) {
+            Node s = subject(random.nextInt(subjects));
+            Node p = predicate(random.nextInt(PREDICATES));
+            Node o = object(random, subjects);
+            triples.add(Triple.create(s, p, o));
+        }
+        return triples;
+    }
+
+    /** Create {@code count} quads, spread across the default graph and {@code graphs} named graphs. */
+    public static List<Quad> quads(int count, int graphs) {
+        return quads(count, graphs, SEED);
+    }
+
+    /** Create {@code count} quads, spread across the default graph and {@code graphs} named graphs. */
+    public static List<Quad> quads(int count, int graphs, long seed) {
+        Random random = new Random(seed);
+        List<Triple> triples = triples(count, seed);
+        List<Quad> quads = new ArrayList<>(count);
+        for ( Triple t : triples ) {
+            int g = random.nextInt(graphs + 1);
+            Node gn = ( g == 0 ) ? Quad.defaultGraphIRI : NodeFactory.createURI(NS + "graph" + g);
+            quads.add(Quad.create(gn, t));
+        }
+        return quads;
+    }
+
+    /** A general purpose, in-memory dataset with {@code count} quads. */
+    public static DatasetGraph dataset(int count, int graphs) {
+        DatasetGraph dsg = DatasetGraphFactory.create();
+        quads(count, graphs).forEach(dsg::add);
+        return dsg;
+    }
+
+    /**
+     * Create rows for a join: {@code keyVar} is bound to one of {@code keys}
+     * different values and {@code otherVar} to a different value in each row.
+     */
+    public static List<Binding> joinBindings(int rows, int keys, long seed, String keyVar, String otherVar) {
+        Random random = new Random(seed);
+        Var varKey = Var.alloc(keyVar);
+        Var varOther = Var.alloc(otherVar);
+        List<Binding> bindings = new ArrayList<>(rows);
+        for ( int i = 0 ; i < rows ; i++ ) {
+            Node k = NodeFactory.createURI(NS + "k" + random.nextInt(keys));
+            Node x = NodeFactory.createURI(NS + otherVar + i);
+            bindings.add(Binding.builder().add(varKey, k).add(varOther, x).build());
+        }
+        return bindings;
+    }
+
+    /** Create rows with {@code ?s} bound to a URI and {@code ?v} bound to a random integer. */
+    public static List<Binding> sortableBindings(int rows, long seed) {
+        Random random = new Random(seed);
+        Var varS = Var.alloc("s");
+        Var varV = Var.alloc("v");
+        List<Binding> bindings = new ArrayList<>(rows);
+        for ( int i = 0 ; i < rows ; i++ ) {
+            Node s = subject(i);
+            Node v = NodeFactoryExtra.intToNode(random.nextInt());
+            bindings.add(Binding.builder().add(varS, s).add(varV, v).build());
+        }
+        return bindings;
+    }
+
+    /**
+     * Create an empty graph of one of the {@code GraphMem2} implementations:
+     * "GraphMem2Fast", "GraphMem2Legacy" or "GraphMem2Roaring".
+     */
+    public static Graph createGraphMem2(String implementation) {
+        switch (implementation) {
+            case "GraphMem2Fast":       return new GraphMem2Fast();
+            case "GraphMem2Legacy":     return new GraphMem2Legacy();
+            case "GraphMem2Roaring":    return new GraphMem2Roaring();
+            default:
+                throw new IllegalArgumentException("Unknown graph implementation: " + implementation);
+        }
+    }
+
+    private static Node subject(int i) {
+        return NodeFactory.createURI(NS + "s" + i);
+    }
+
+    private static Node predicate(int i) {
+        return NodeFactory.createURI(NS + "p" + i);
+    }
+
+    private static Node object(Random random, int subjects) {
+        switch (random.nextInt(4)) {
+            case 0:     return subject(random.nextInt(subjects));
+            case 1:     return NodeFactoryExtra.intToNode(random.nextInt(10_000));
+            case 2:     return NodeFactory.createLiteralString("value " + random.nextInt(10_000));
+            default:    return NodeFactory.createLiteralLang("label " + random.nextInt(10_000), "en");
+        }
+    }
+}
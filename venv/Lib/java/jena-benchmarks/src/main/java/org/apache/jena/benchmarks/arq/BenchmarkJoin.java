@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jena.benchmarks.arq;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.benchmarks.BenchmarkData;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper;
+import org.apache.jena.sparql.engine.join.Join;
+import org.apache.jena.sparql.util.Context;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Hash join and nested loop join on the same rows.
+ * The left side has variables {@code ?a ?k} and the right side {@code ?k ?b};
+ * {@code keys} is the number of different values of the join variable {@code ?k}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkJoin {
+
+    @Param({"hash", "nestedLoop"})
+    public String algorithm;
+
+    @Param({"1000", "10000"})
+    public int rows;
+
+    @Param({"10", "1000"})
+    public int keys;
+
+    private List<Binding> left;
+    private List<Binding> right;
+    private ExecutionContext execCxt;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        left = BenchmarkData.joinBindings(rows, keys, 1, "k", "a");
+        right = BenchmarkData.joinBindings(rows, keys, 2, "k", "b");
+        execCxt = new ExecutionContext(new Context(), null, null, null);
+    }
+
+    @Benchmark
+    public void join(Blackhole blackhole) {
+        QueryIterator qLeft = QueryIterPlainWrapper.create(left.iterator(), execCxt);
+        QueryIterator qRight = QueryIterPlainWrapper.create(right.iterator(), execCxt);
+        QueryIterator qIter;
+        switch (algorithm) {
+            case "hash":        qIter = Join.hashJoin(qLeft, qRight, execCxt); break;
+            case "nestedLoop":  qIter = Join.nestedLoopJoin(qLeft, qRight, execCxt); break;
+            default:
+                throw new IllegalArgumentException("Join algorithm: " + algorithm);
+        }
+        try {
+            while ( qIter.hasNext() )
+                blackhole.consume(qIter.next());
+        } finally { qIter.close(); }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks.arq;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.benchmarks.BenchmarkData;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.sparql.exec.QueryExec;
+import org.apache.jena.sparql.exec.QueryExecBuilder;
+import org.apache.jena.sparql.exec.RowSet;
+import org.apache.jena.sparql.path.eval.PathClosureCache;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Property paths {@code :p+}, from one node and with both ends unbound.
+ * The {@code engine} is "general" (the default path engine), "bitmap"
+ * ({@link ARQ#pathEvalBitmap}) or "cached" (bitmap, with a {@link PathClosureCache}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkPath {
+
+    @Param({"1000", "10000"})
+    public int nodes;
+
+    @Param({"general", "bitmap", "cached"})
+    public String engine;
+
+    private Graph graph;
+    private PathClosureCache cache;
+
+    private static final String PREFIX = "PREFIX : <"+BenchmarkData.NS+"> ";
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // A tree with extra links back towards the root : long paths and cycles.
+        Random random = new Random(BenchmarkData.SEED);
+        Node p = NodeFactory.createURI(BenchmarkData.NS+"p");
+        graph = BenchmarkData.createGraphMem2("GraphMem2Fast");
+        for ( int i = 1 ; i < nodes ; i++ ) {
+            graph.add(Triple.create(node(random.nextInt(i)), p, node(i)));
+            if ( random.nextInt(10) == 0 )
+                graph.add(Triple.create(node(i), p, node(random.nextInt(i))));
+        }
+        cache = new PathClosureCache();
+    }
+
+    private static Node node(int i) {
+        return NodeFactory.createURI(BenchmarkData.NS+"n"+i);
+    }
+
+    @Benchmark
+    public void pathFromNode(Blackhole blackhole) {
+        run(PREFIX+"SELECT * { :n1 :p+ ?o }", blackhole);
+    }
+
+    @Benchmark
+    public void pathUnbound(Blackhole blackhole) {
+        run(PREFIX+"SELECT (count(*) AS ?c) { ?s :p+ ?o }", blackhole);
+    }
+
+    private void run(String queryString, Blackhole blackhole) {
+        QueryExecBuilder builder = QueryExec.graph(graph).query(queryString);
+        if ( ! engine.equals("general") )
+            builder.set(ARQ.pathEvalBitmap, true);
+        if ( engine.equals("cached") )
+            builder.set(ARQ.pathClosureCache, cache);
+        RowSet rowSet = builder.select();
+        rowSet.forEachRemaining(blackhole::consume);
+    }
+}
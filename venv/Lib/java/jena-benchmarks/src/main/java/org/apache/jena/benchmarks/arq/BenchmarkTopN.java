@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jena.benchmarks.arq;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.benchmarks.BenchmarkData;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.SortCondition;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.iterator.QueryIterPlainWrapper;
+import org.apache.jena.sparql.engine.iterator.QueryIterSlice;
+import org.apache.jena.sparql.engine.iterator.QueryIterSort;
+import org.apache.jena.sparql.engine.iterator.QueryIterTopN;
+import org.apache.jena.sparql.util.Context;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@code ORDER BY ... LIMIT}: {@link QueryIterTopN} compared to a sort followed by a slice,
+ * with the sort in memory or spilling to disk.
+ * {@code QueryIterTopN} keeps at most {@code limit} rows so it does not spill.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkTopN {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"10", "1000"})
+    public int limit;
+
+    private List<Binding> bindings;
+    private List<SortCondition> conditions;
+    private ExecutionContext execCxt;
+    private ExecutionContext execCxtSpill;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        bindings = BenchmarkData.sortableBindings(rows, BenchmarkData.SEED);
+        conditions = List.of(new SortCondition(Var.alloc("v"), Query.ORDER_ASCENDING));
+        execCxt = new ExecutionContext(new Context(), null, null, null);
+        Context context = new Context();
+        context.set(ARQ.spillToDiskThreshold, 10_000L);
+        execCxtSpill = new ExecutionContext(context, null, null, null);
+    }
+
+    @Benchmark
+    public void topN(Blackhole blackhole) {
+        QueryIterator input = QueryIterPlainWrapper.create(bindings.iterator(), execCxt);
+        consume(new QueryIterTopN(input, conditions, limit, false, execCxt), blackhole);
+    }
+
+    @Benchmark
+    public void sortSlice(Blackhole blackhole) {
+        sortSlice(execCxt, blackhole);
+    }
+
+    @Benchmark
+    public void sortSliceSpill(Blackhole blackhole) {
+        sortSlice(execCxtSpill, blackhole);
+    }
+
+    private void sortSlice(ExecutionContext cxt, Blackhole blackhole) {
+        QueryIterator input = QueryIterPlainWrapper.create(bindings.iterator(), cxt);
+        QueryIterator sort = new QueryIterSort(input, conditions, cxt);
+        consume(new QueryIterSlice(sort, 0, limit, cxt), blackhole);
+    }
+
+    private static void consume(QueryIterator qIter, Blackhole blackhole) {
+        try {
+            while ( qIter.hasNext() )
+                blackhole.consume(qIter.next());
+        } finally { qIter.close(); }
+    }
+}
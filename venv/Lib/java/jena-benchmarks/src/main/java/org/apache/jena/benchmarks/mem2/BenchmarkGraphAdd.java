@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks.mem2;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.benchmarks.BenchmarkData;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Triple;
+import org.openjdk.jmh.annotations.*;
+
+/** Build and clear the {@code GraphMem2} graphs. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkGraphAdd {
+
+    @Param({"GraphMem2Fast", "GraphMem2Legacy", "GraphMem2Roaring"})
+    public String graphImpl;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private List<Triple> triples;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        triples = BenchmarkData.triples(size);
+    }
+
+    @Benchmark
+    public Graph add() {
+        Graph graph = BenchmarkData.createGraphMem2(graphImpl);
+        for ( Triple t : triples )
+            graph.add(t);
+        return graph;
+    }
+
+    @Benchmark
+    public int addDelete() {
+        Graph graph = BenchmarkData.createGraphMem2(graphImpl);
+        for ( Triple t : triples )
+            graph.add(t);
+        for ( Triple t : triples )
+            graph.delete(t);
+        return graph.size();
+    }
+}
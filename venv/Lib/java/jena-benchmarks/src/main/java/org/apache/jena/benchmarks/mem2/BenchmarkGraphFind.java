@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks.mem2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.benchmarks.BenchmarkData;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.mem2.pattern.MatchPattern;
+import org.apache.jena.mem2.pattern.PatternClassifier;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Find, contains and stream on the {@code GraphMem2} graphs, for each shape of
+ * pattern as classified by {@link PatternClassifier}.
+ * <p>
+ * Each benchmark operation is {@value #LOOKUPS} lookups with patterns made from
+ * triples in the graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkGraphFind {
+    public static final int LOOKUPS = 100;
+
+    @Param({"GraphMem2Fast", "GraphMem2Legacy", "GraphMem2Roaring"})
+    public String graphImpl;
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    // All values of the enum.
+    @Param
+    public MatchPattern pattern;
+
+    private Graph graph;
+    private Triple[] lookups;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Triple> triples = BenchmarkData.triples(size);
+        graph = BenchmarkData.createGraphMem2(graphImpl);
+        triples.forEach(graph::add);
+
+        Random random = new Random(BenchmarkData.SEED);
+        List<Triple> x = new ArrayList<>(LOOKUPS);
+        for ( int i = 0 ; i < LOOKUPS ; i++ ) {
+            Triple t = triples.get(random.nextInt(triples.size()));
+            Triple m = matchTriple(t, pattern);
+            if ( PatternClassifier.classify(m) != pattern )
+                throw new IllegalStateException("Pattern mismatch: " + m + " is not " + pattern);
+            x.add(m);
+        }
+        lookups = x.toArray(new Triple[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graph.close();
+    }
+
+    /** Replace the wildcard positions of the pattern with {@link Node#ANY}. */
+    private static Triple matchTriple(Triple t, MatchPattern pattern) {
+        switch (pattern) {
+            case SUB_PRE_OBJ:   return t;
+            case SUB_PRE_ANY:   return Triple.createMatch(t.getSubject(), t.getPredicate(), Node.ANY);
+            case SUB_ANY_OBJ:   return Triple.createMatch(t.getSubject(), Node.ANY, t.getObject());
+            case SUB_ANY_ANY:   return Triple.createMatch(t.getSubject(), Node.ANY, Node.ANY);
+            case ANY_PRE_OBJ:   return Triple.createMatch(Node.ANY, t.getPredicate(), t.getObject());
+            case ANY_PRE_ANY:   return Triple.createMatch(Node.ANY, t.getPredicate(), Node.ANY);
+            case ANY_ANY_OBJ:   return Triple.createMatch(Node.ANY, Node.ANY, t.getObject());
+            case ANY_ANY_ANY:   return Triple.createMatch(Node.ANY, Node.ANY, Node.ANY);
+            default:
+                throw new IllegalArgumentException("Pattern: " + pattern);
+        }
+    }
+
+    @Benchmark
+    public void find(Blackhole blackhole) {
+        for ( Triple m : lookups ) {
+            ExtendedIterator<Triple> iter = graph.find(m);
+            try {
+                while ( iter.hasNext() )
+                    blackhole.consume(iter.next());
+            } finally { iter.close(); }
+        }
+    }
+
+    @Benchmark
+    public void contains(Blackhole blackhole) {
+        for ( Triple m : lookups )
+            blackhole.consume(graph.contains(m));
+    }
+
+    @Benchmark
+    public void stream(Blackhole blackhole) {
+        for ( Triple m : lookups )
+            blackhole.consume(graph.stream(m.getSubject(), m.getPredicate(), m.getObject()).count());
+    }
+}
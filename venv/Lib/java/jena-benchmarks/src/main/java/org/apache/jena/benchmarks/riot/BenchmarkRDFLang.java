@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jena.benchmarks.riot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.benchmarks.BenchmarkData;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RDFWriter;
+import org.apache.jena.riot.lang.StreamRDFCounting;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Parse and write throughput for each RDF syntax.
+ * Triple formats use the default graph of the data; quad formats use the whole dataset.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkRDFLang {
+
+    @Param({"N-Triples", "N-Quads", "Turtle", "TriG", "RDF/XML", "JSON-LD", "RDF-THRIFT", "RDF-PROTO"})
+    public String lang;
+
+    @Param({"100000"})
+    public int size;
+
+    private Lang syntax;
+    private DatasetGraph dataset;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        syntax = RDFLanguages.nameToLang(lang);
+        if ( syntax == null )
+            throw new IllegalArgumentException("Unknown syntax: " + lang);
+        dataset = BenchmarkData.dataset(size, 4);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out);
+        bytes = out.toByteArray();
+    }
+
+    private void write(OutputStream out) {
+        if ( RDFLanguages.isQuads(syntax) )
+            RDFWriter.source(dataset).lang(syntax).output(out);
+        else
+            RDFWriter.source(dataset.getDefaultGraph()).lang(syntax).output(out);
+    }
+
+    @Benchmark
+    public long parse() {
+        StreamRDFCounting dest = StreamRDFLib.count();
+        RDFParser.source(new ByteArrayInputStream(bytes)).lang(syntax).parse(dest);
+        return dest.count();
+    }
+
+    @Benchmark
+    public void write() {
+        write(OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jena.benchmarks.riot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.benchmarks.BenchmarkData;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.resultset.ResultSetLang;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.exec.RowSet;
+import org.apache.jena.sparql.exec.RowSetStream;
+import org.apache.jena.sparql.resultset.ResultsReader;
+import org.apache.jena.sparql.resultset.ResultsWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Write and read throughput for each SPARQL result set format. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkResultsLang {
+
+    @Param({"JSON", "XML", "CSV", "TSV", "Thrift", "Protobuf"})
+    public String format;
+
+    @Param({"100000"})
+    public int rows;
+
+    private Lang lang;
+    private List<Var> vars;
+    private List<Binding> bindings;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (format) {
+            case "JSON":        lang = ResultSetLang.RS_JSON; break;
+            case "XML":         lang = ResultSetLang.RS_XML; break;
+            case "CSV":         lang = ResultSetLang.RS_CSV; break;
+            case "TSV":         lang = ResultSetLang.RS_TSV; break;
+            case "Thrift":      lang = ResultSetLang.RS_Thrift; break;
+            case "Protobuf":    lang = ResultSetLang.RS_Protobuf; break;
+            default:
+                throw new IllegalArgumentException("Unknown result set format: " + format);
+        }
+        vars = List.of(Var.alloc("k"), Var.alloc("a"));
+        bindings = BenchmarkData.joinBindings(rows, rows, BenchmarkData.SEED, "k", "a");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out);
+        bytes = out.toByteArray();
+    }
+
+    private void write(OutputStream out) {
+        RowSet rowSet = RowSetStream.create(vars, bindings.iterator());
+        ResultsWriter.create().lang(lang).write(out, rowSet);
+    }
+
+    @Benchmark
+    public void write() {
+        write(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) {
+        RowSet rowSet = ResultsReader.create().lang(lang).readRowSet(new ByteArrayInputStream(bytes));
+        rowSet.forEachRemaining(blackhole::consume);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.benchmarks.rules;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.benchmarks.BenchmarkData;
+import org.apache.jena.graph.*;
+import org.apache.jena.reasoner.InfGraph;
+import org.apache.jena.reasoner.rulesys.GenericRuleReasoner;
+import org.apache.jena.reasoner.rulesys.Rule;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Forward chaining with the RETE engine, one triple at a time and in batches
+ * with the rules matched in parallel ({@link GenericRuleReasoner#setParallelRETE}).
+ * The rules are RDFS-like: subclass and subproperty closure, domain and range.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkRETE {
+
+    @Param({"2000", "10000"})
+    public int instances;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private Graph data;
+    private GenericRuleReasoner reasoner;
+
+    private static final String RULES = String.join("\n",
+        "[sc:  (?a rdfs:subClassOf ?b) (?b rdfs:subClassOf ?c) -> (?a rdfs:subClassOf ?c)]",
+        "[sp:  (?a rdfs:subPropertyOf ?b) (?b rdfs:subPropertyOf ?c) -> (?a rdfs:subPropertyOf ?c)]",
+        "[typ: (?x rdf:type ?a) (?a rdfs:subClassOf ?b) -> (?x rdf:type ?b)]",
+        "[prp: (?x ?p ?y) (?p rdfs:subPropertyOf ?q) -> (?x ?q ?y)]",
+        "[dom: (?x ?p ?y) (?p rdfs:domain ?c) -> (?x rdf:type ?c)]",
+        "[rng: (?x ?p ?y) (?p rdfs:range ?c) -> (?y rdf:type ?c)]");
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(BenchmarkData.SEED);
+        int classes = 200;
+        int properties = 20;
+        data = GraphMemFactory.createGraphMem();
+        for ( int i = 1 ; i < classes ; i++ )
+            data.add(Triple.create(node("C", i), RDFS.Nodes.subClassOf, node("C", random.nextInt(i))));
+        for ( int i = 1 ; i < properties ; i++ ) {
+            data.add(Triple.create(node("p", i), RDFS.Nodes.subPropertyOf, node("p", random.nextInt(i))));
+            data.add(Triple.create(node("p", i), RDFS.Nodes.domain, node("C", random.nextInt(classes))));
+            data.add(Triple.create(node("p", i), RDFS.Nodes.range, node("C", random.nextInt(classes))));
+        }
+        for ( int i = 0 ; i < instances ; i++ ) {
+            data.add(Triple.create(node("x", i), RDF.Nodes.type, node("C", random.nextInt(classes))));
+            data.add(Triple.create(node("x", i), node("p", random.nextInt(properties)), node("x", random.nextInt(instances))));
+        }
+        reasoner = new GenericRuleReasoner(Rule.parseRules(RULES));
+        reasoner.setMode(GenericRuleReasoner.FORWARD_RETE);
+        reasoner.setParallelRETE(parallel);
+    }
+
+    private static Node node(String prefix, int i) {
+        return NodeFactory.createURI(BenchmarkData.NS+prefix+i);
+    }
+
+    @Benchmark
+    public long prepare() {
+        InfGraph infGraph = reasoner.bind(data);
+        infGraph.prepare();
+        return infGraph.getDeductionsGraph().size();
+    }
+}
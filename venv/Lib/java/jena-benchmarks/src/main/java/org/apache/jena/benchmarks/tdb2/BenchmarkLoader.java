@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jena.benchmarks.tdb2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.atlas.io.IO;
+import org.apache.jena.atlas.lib.FileOps;
+import org.apache.jena.benchmarks.BenchmarkData;
+import org.apache.jena.dboe.base.file.Location;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFWriter;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.system.progress.MonitorOutputs;
+import org.apache.jena.tdb2.DatabaseMgr;
+import org.apache.jena.tdb2.loader.DataLoader;
+import org.apache.jena.tdb2.loader.LoaderFactory;
+import org.apache.jena.tdb2.sys.TDBInternal;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Bulk loading into a new TDB2 database on disk with the parallel, phased and
+ * sequential loaders. Each operation loads an N-Quads file into an empty database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BenchmarkLoader {
+
+    @Param({"parallel", "phased", "sequential"})
+    public String loader;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private Path workDir;
+    private String dataFile;
+    private String databaseDir;
+    private DatasetGraph dsg;
+
+    @Setup(Level.Trial)
+    public void setupData() throws IOException {
+        workDir = Files.createTempDirectory("jena-benchmarks-");
+        dataFile = workDir.resolve("data.nq").toString();
+        DatasetGraph data = DatasetGraphFactory.create();
+        BenchmarkData.quads(size, 4).forEach(data::add);
+        try ( OutputStream out = IO.openOutputFile(dataFile) ) {
+            RDFWriter.source(data).lang(Lang.NQUADS).output(out);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownData() {
+        FileOps.clearAll(workDir.toString());
+        FileOps.delete(workDir.toString());
+    }
+
+    @Setup(Level.Invocation)
+    public void setupDatabase() {
+        databaseDir = workDir.resolve("DB").toString();
+        FileOps.ensureDir(databaseDir);
+        dsg = DatabaseMgr.connectDatasetGraph(Location.create(databaseDir));
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownDatabase() {
+        TDBInternal.expel(dsg);
+        FileOps.clearAll(databaseDir);
+        FileOps.delete(databaseDir);
+    }
+
+    @Benchmark
+    public long load() {
+        DataLoader dataLoader = createLoader(dsg);
+        dataLoader.startBulk();
+        try {
+            dataLoader.load(dataFile);
+            dataLoader.finishBulk();
+        } catch (RuntimeException ex) {
+            dataLoader.finishException(ex);
+            throw ex;
+        }
+        return dataLoader.countTriples() + dataLoader.countQuads();
+    }
+
+    private DataLoader createLoader(DatasetGraph dsg) {
+        switch (loader) {
+            case "parallel":    return LoaderFactory.parallelLoader(dsg, MonitorOutputs.nullOutput());
+            case "phased":      return LoaderFactory.phasedLoader(dsg, MonitorOutputs.nullOutput());
+            case "sequential":  return LoaderFactory.sequentialLoader(dsg, MonitorOutputs.nullOutput());
+            default:
+                throw new IllegalArgumentException("Unknown loader: " + loader);
+        }
+    }
+}
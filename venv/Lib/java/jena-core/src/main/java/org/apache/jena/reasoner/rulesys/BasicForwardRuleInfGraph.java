@@ -18,6 +18,7 @@
 
 package org.apache.jena.reasoner.rulesys;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
@@ -28,6 +29,8 @@ import org.apache.jena.graph.Triple ;
 import org.apache.jena.reasoner.* ;
 import org.apache.jena.reasoner.rulesys.impl.FRuleEngineI ;
 import org.apache.jena.reasoner.rulesys.impl.FRuleEngineIFactory ;
+import org.apache.jena.reasoner.rulesys.impl.RETEEngine ;
+import org.apache.jena.reasoner.rulesys.impl.RuleStats ;
 import org.apache.jena.reasoner.rulesys.impl.SafeGraph ;
 import org.apache.jena.util.OneToManyMap ;
 import org.apache.jena.util.iterator.ExtendedIterator ;
@@ -69,6 +72,18 @@ public class BasicForwardRuleInfGraph extends BaseInfGraph implements ForwardRul
     /** Flag which, if true, enables tracing of rule actions to logger.info */
     protected boolean traceOn = false;
     
+    /** Flag which, if true, runs a RETE engine in batch mode with rules matched in parallel */
+    protected boolean parallelRETE = false;
+    
+    /** Maximum number of triples in a batch, when the RETE engine is in batch mode */
+    protected int parallelBatchSize = RETEEngine.DEFAULT_BATCH_SIZE;
+    
+    /** Batches with fewer triples than this are matched without using other threads */
+    protected int parallelThreshold = RETEEngine.DEFAULT_PARALLEL_THRESHOLD;
+    
+    /** Flag which, if true, enables collection of per-rule counters in a RETE engine */
+    protected boolean ruleStatistics = false;
+    
 //    private static Logger logger = LoggerFactory.getLogger(BasicForwardRuleInfGraph.class);
     
 //=======================================================================
@@ -130,6 +145,18 @@ public class BasicForwardRuleInfGraph extends BaseInfGraph implements ForwardRul
      */
     protected void instantiateRuleEngine(List<Rule> rules) {
         engine = FRuleEngineIFactory.getInstance().createFRuleEngineI(this, rules, false);
+        configureRuleEngine();
+    }
+    
+    /**
+     * Pass the engine settings of this graph on to the current rule engine.
+     * Called when the engine is (re)created.
+     */
+    protected void configureRuleEngine() {
+        if (engine instanceof RETEEngine rete) {
+            rete.setParallel(parallelRETE, parallelBatchSize, parallelThreshold);
+            rete.setRuleStatistics(ruleStatistics);
+        }
     }
     
     /**
@@ -515,4 +542,43 @@ public class BasicForwardRuleInfGraph extends BaseInfGraph implements ForwardRul
         return engine.getNRulesFired();
     }
     
+    /**
+     * Set to true to process triples in batches, matching the rules in parallel,
+     * in a RETE engine. Has no effect on other rule engines.
+     * Normally set before the graph is prepared.
+     */
+    public void setParallelRETE(boolean state) {
+        parallelRETE = state;
+        configureRuleEngine();
+    }
+    
+    /**
+     * Set batch processing in a RETE engine, as {@link #setParallelRETE(boolean)},
+     * with the maximum number of triples in a batch and the number of triples in
+     * a batch below which the rules are matched on the calling thread.
+     */
+    public void setParallelRETE(boolean state, int batchSize, int parallelThreshold) {
+        parallelRETE = state;
+        parallelBatchSize = batchSize;
+        this.parallelThreshold = parallelThreshold;
+        configureRuleEngine();
+    }
+    
+    /**
+     * Set to true to collect per-rule counters in a RETE engine, see {@link #getRuleStats()}.
+     * Has no effect on other rule engines.
+     */
+    public void setRuleStatistics(boolean state) {
+        ruleStatistics = state;
+        configureRuleEngine();
+    }
+    
+    /**
+     * Return the per-rule counters of matches, firings and time taken, if
+     * enabled by {@link #setRuleStatistics}.
+     */
+    public Collection<RuleStats> getRuleStats() {
+        return engine.getRuleStats();
+    }
+    
 }
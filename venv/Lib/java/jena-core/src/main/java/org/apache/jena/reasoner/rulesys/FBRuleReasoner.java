@@ -49,6 +49,12 @@ public class FBRuleReasoner implements RuleReasoner {
     boolean traceOn = false;
 //    boolean traceOn = true;
 
+    /** Flag which, if true, runs the RETE engine in batch mode with rules matched in parallel */
+    protected boolean parallelRETE = false;
+
+    /** Flag which, if true, enables collection of per-rule counters in the RETE engine */
+    protected boolean ruleStatistics = false;
+
     /** Flag, if true we cache the closure of the pure rule set with its axioms */
     protected static final boolean cachePreload = true;
 
@@ -198,10 +204,14 @@ public class FBRuleReasoner implements RuleReasoner {
             throw new ReasonerException("Can only bind one schema at a time to an OWLRuleReasoner");
         }
         FBRuleInfGraph graph = new FBRuleInfGraph(this, rules, getPreload(), tbox);
+        graph.setParallelRETE(parallelRETE);
+        graph.setRuleStatistics(ruleStatistics);
         graph.prepare();
         FBRuleReasoner fbr  = new FBRuleReasoner(rules, graph, factory);
         fbr.setDerivationLogging(recordDerivations);
         fbr.setTraceOn(traceOn);
+        fbr.setParallelRETE(parallelRETE);
+        fbr.setRuleStatistics(ruleStatistics);
         return fbr;
     }
 
@@ -231,6 +241,8 @@ public class FBRuleReasoner implements RuleReasoner {
         FBRuleInfGraph graph = new FBRuleInfGraph( this, rules, schemaArg );
         graph.setDerivationLogging( recordDerivations );
         graph.setTraceOn( traceOn );
+        graph.setParallelRETE( parallelRETE );
+        graph.setRuleStatistics( ruleStatistics );
         graph.rebind( data );
         return graph;
     }
@@ -326,6 +338,29 @@ public class FBRuleReasoner implements RuleReasoner {
         return traceOn;
     }
 
+    /**
+     * Set to true to run the forward RETE engine in batch mode: added and removed
+     * triples are processed in batches, each batch being matched against the rules
+     * in parallel. The rules are fired in a fixed order so the deductions do not
+     * depend on the threads used. Only applies to monotonic rule sets.
+     * <p>
+     * Default - false.
+     */
+    public void setParallelRETE(boolean state) {
+        parallelRETE = state;
+    }
+
+    /**
+     * Set to true to collect per-rule counters of matches, firings and time taken
+     * in the forward RETE engine of the InfGraphs created by this reasoner.
+     * <p>
+     * Default - false.
+     * @see BasicForwardRuleInfGraph#getRuleStats()
+     */
+    public void setRuleStatistics(boolean state) {
+        ruleStatistics = state;
+    }
+
     /**
      * Set a configuration parameter for the reasoner. The supported parameters
      * are:
@@ -386,6 +421,8 @@ public class FBRuleReasoner implements RuleReasoner {
      * <ul>
      * <li>PROPderivationLogging - set to true to enable recording all rule derivations</li>
      * <li>PROPtraceOn - set to true to enable verbose trace information to be sent to the logger INFO channel</li>
+     * <li>PROPparallelRETE - set to true to run the RETE engine in batch mode, matching rules in parallel</li>
+     * <li>PROPruleStatistics - set to true to collect per-rule counters in the RETE engine</li>
      * </ul>
      * @param parameter the property identifying the parameter to be changed
      * @param value the new value for the parameter, typically this is a wrapped
@@ -399,6 +436,12 @@ public class FBRuleReasoner implements RuleReasoner {
         } else if (parameter.equals(ReasonerVocabulary.PROPtraceOn)) {
             traceOn =  Util.convertBooleanPredicateArg(parameter, value);
             return true;
+        } else if (parameter.equals(ReasonerVocabulary.PROPparallelRETE)) {
+            parallelRETE =  Util.convertBooleanPredicateArg(parameter, value);
+            return true;
+        } else if (parameter.equals(ReasonerVocabulary.PROPruleStatistics)) {
+            ruleStatistics =  Util.convertBooleanPredicateArg(parameter, value);
+            return true;
         } else {
             return false;
         }
@@ -336,6 +336,8 @@ public class GenericRuleReasoner extends FBRuleReasoner {
             ((InfGraph)graph).prepare();
         } else if (mode == FORWARD_RETE) {
                 graph = new RETERuleInfGraph(this, rules, null, tbox);
+                ((BasicForwardRuleInfGraph)graph).setParallelRETE(parallelRETE);
+                ((BasicForwardRuleInfGraph)graph).setRuleStatistics(ruleStatistics);
                 ((InfGraph)graph).prepare();
         } else if (mode == BACKWARD) {
             graph = tbox;
@@ -343,6 +345,8 @@ public class GenericRuleReasoner extends FBRuleReasoner {
             List<Rule> ruleSet = rules;
             graph = new FBRuleInfGraph(this, ruleSet, getPreload(), tbox);
             if (enableTGCCaching) ((FBRuleInfGraph)graph).setUseTGCCache();
+            ((FBRuleInfGraph)graph).setParallelRETE(parallelRETE);
+            ((FBRuleInfGraph)graph).setRuleStatistics(ruleStatistics);
             ((FBRuleInfGraph)graph).prepare();
         }
         GenericRuleReasoner grr = new GenericRuleReasoner(rules, graph, factory, mode);
@@ -350,6 +354,8 @@ public class GenericRuleReasoner extends FBRuleReasoner {
         grr.setTraceOn(traceOn);
         grr.setTransitiveClosureCaching(enableTGCCaching);
         grr.setFunctorFiltering(filterFunctors);
+        grr.setParallelRETE(parallelRETE);
+        grr.setRuleStatistics(ruleStatistics);
         if (preprocessorHooks != null) {
             for ( RulePreprocessHook preprocessorHook : preprocessorHooks )
             {
@@ -381,6 +387,8 @@ public class GenericRuleReasoner extends FBRuleReasoner {
                 graph = new RETERuleInfGraph(this, rules, schemaArg);
                 ((BasicForwardRuleInfGraph)graph).setTraceOn(traceOn);
                 ((BasicForwardRuleInfGraph)graph).setFunctorFiltering(filterFunctors);
+                ((BasicForwardRuleInfGraph)graph).setParallelRETE(parallelRETE);
+                ((BasicForwardRuleInfGraph)graph).setRuleStatistics(ruleStatistics);
         } else if (mode == BACKWARD) {
             graph = new LPBackwardRuleInfGraph(this, getBruleStore(), data, schemaArg);
             ((LPBackwardRuleInfGraph)graph).setTraceOn(traceOn);
@@ -391,6 +399,8 @@ public class GenericRuleReasoner extends FBRuleReasoner {
             if (enableTGCCaching) fbgraph.setUseTGCCache();
             fbgraph.setTraceOn(traceOn);
             fbgraph.setFunctorFiltering(filterFunctors);
+            fbgraph.setParallelRETE(parallelRETE);
+            fbgraph.setRuleStatistics(ruleStatistics);
             if (preprocessorHooks!= null) {
                 for ( RulePreprocessHook preprocessorHook : preprocessorHooks )
                 {
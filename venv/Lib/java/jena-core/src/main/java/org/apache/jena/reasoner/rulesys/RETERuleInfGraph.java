@@ -79,6 +79,7 @@ public class RETERuleInfGraph extends BasicForwardRuleInfGraph {
     @Override
     protected void instantiateRuleEngine(List<Rule> rules) {
         engine = FRuleEngineIFactory.getInstance().createFRuleEngineI(this, rules, true);
+        configureRuleEngine();
     }
 
     /**
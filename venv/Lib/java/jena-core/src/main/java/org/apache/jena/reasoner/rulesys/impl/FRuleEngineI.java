@@ -18,6 +18,9 @@
 
 package org.apache.jena.reasoner.rulesys.impl;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import org.apache.jena.graph.Triple ;
 import org.apache.jena.reasoner.Finder ;
 
@@ -66,6 +69,14 @@ public interface FRuleEngineI {
      */
     public long getNRulesFired();
     
+    /**
+     * Return the per-rule counters collected by this engine. The default
+     * implementation does not collect any counters.
+     */
+    public default Collection<RuleStats> getRuleStats() {
+        return Collections.emptyList();
+    }
+    
     /**
      * Return true if the internal engine state means that tracing is worthwhile.
      * It will return false during the axiom bootstrap phase.
@@ -136,6 +136,8 @@ public class RETEConflictSet {
         }
         RETEEngine engine = context.getEngine();
         engine.incRuleCount();
+        RuleStats stats = engine.getRuleStats(rule);
+        long start = (stats == null) ? 0 : System.nanoTime();
         List<Triple> matchList = null;
         if (infGraph.shouldLogDerivations() && isAdd) {
             // Create derivation record
@@ -192,6 +194,7 @@ public class RETEConflictSet {
                 }
             }
         }        
+        if (stats != null) stats.addFiring(System.nanoTime() - start);
     }
         
     // Inner class representing a conflict set entry 
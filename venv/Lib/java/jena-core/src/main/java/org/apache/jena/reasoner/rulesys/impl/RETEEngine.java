@@ -19,6 +19,8 @@
 package org.apache.jena.reasoner.rulesys.impl;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.jena.graph.* ;
 import org.apache.jena.reasoner.* ;
@@ -77,6 +79,27 @@ public class RETEEngine implements FRuleEngineI {
     /** True if all the rules are monotonic, so we short circuit the conflict set processing */
     boolean isMonotonic = true;
     
+    /** True if added and removed triples are processed in batches, matching each rule in parallel */
+    protected boolean parallel = false;
+    
+    /** Per-rule counters, null if not being collected */
+    protected Map<Rule, RuleStats> ruleStats;
+    
+    /** The network for each rule, used for batch processing, built when first needed */
+    protected List<RuleNetwork> ruleNetworks;
+    
+    /** Default maximum number of triples processed as one batch */
+    public static final int DEFAULT_BATCH_SIZE = 100_000;
+    
+    /** Default size of batch below which the batch is processed without using other threads */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1_000;
+    
+    /** Maximum number of triples processed as one batch */
+    protected int batchSize = DEFAULT_BATCH_SIZE;
+    
+    /** Batches with fewer triples than this are processed without using other threads */
+    protected int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    
     protected static Logger logger = LoggerFactory.getLogger(FRuleEngine.class);
     
 //  =======================================================================
@@ -212,6 +235,90 @@ public class RETEEngine implements FRuleEngineI {
         this.recordDerivations = recordDerivations;
     }
     
+    /**
+     * Set to true to process added and removed triples in batches, matching the
+     * triples of a batch against the body of each rule in parallel, using the
+     * {@link ForkJoinPool#commonPool() common fork-join pool}. The rules that
+     * match are then fired in rule order, on the calling thread, so the deductions
+     * are the same from run to run. Only used for monotonic rule sets; the
+     * conflict set processing of non-monotonic rule sets is always sequential.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+    
+    /**
+     * Set batch processing, as {@link #setParallel(boolean)}, with the maximum
+     * number of triples in a batch and the number of triples in a batch below
+     * which the rules are matched on the calling thread.
+     */
+    public void setParallel(boolean parallel, int batchSize, int parallelThreshold) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be one or more: " + batchSize);
+        }
+        this.parallel = parallel;
+        this.batchSize = batchSize;
+        this.parallelThreshold = parallelThreshold;
+    }
+    
+    /**
+     * Return true if batch processing, with parallel matching of rules, is enabled.
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+    
+    /**
+     * Return the maximum number of triples processed as one batch.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    /**
+     * Return the number of triples in a batch below which the batch is processed
+     * without using other threads.
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+    
+    /**
+     * Set to true to collect per-rule counters of matches, firings and time taken.
+     * Setting to false discards any counters collected so far.
+     */
+    public void setRuleStatistics(boolean collect) {
+        if (!collect) {
+            ruleStats = null;
+        } else if (ruleStats == null) {
+            ruleStats = new IdentityHashMap<>();
+        }
+    }
+    
+    /**
+     * Return the counters for a rule, or null if per-rule counters are not being collected.
+     */
+    public RuleStats getRuleStats(Rule rule) {
+        Map<Rule, RuleStats> stats = ruleStats;
+        if (stats == null) return null;
+        synchronized(stats) {
+            return stats.computeIfAbsent(rule, RuleStats::new);
+        }
+    }
+    
+    /**
+     * Return the per-rule counters collected so far, or an empty collection
+     * if per-rule counters are not being collected.
+     */
+    @Override
+    public Collection<RuleStats> getRuleStats() {
+        Map<Rule, RuleStats> stats = ruleStats;
+        if (stats == null) return Collections.emptyList();
+        synchronized(stats) {
+            return new ArrayList<>(stats.values());
+        }
+    }
+    
     /**
      * Access the precomputed internal rule form. Used when precomputing the
      * internal axiom closures.
@@ -235,6 +342,7 @@ public class RETEEngine implements FRuleEngineI {
         RETERuleContext context = new RETERuleContext(infGraph, this);
         Map<RETENode, RETENode> netCopy = new HashMap<>();
         clauseIndex = new OneToManyMap<>();
+        ruleNetworks = null;
         for ( Map.Entry<Node, RETENode> entry : rs.clauseIndex.entrySet() )
         {
             clauseIndex.put( entry.getKey(), entry.getValue().clone( netCopy, context ) );
@@ -258,6 +366,7 @@ public class RETEEngine implements FRuleEngineI {
      */
     public void compile(List<Rule> rules, boolean ignoreBrules) {
         clauseIndex = new OneToManyMap<>();
+        ruleNetworks = null;
         predicatePatterns = new OneToManyMap<>();
         wildcardRule = false;
 
@@ -459,6 +568,10 @@ public class RETEEngine implements FRuleEngineI {
      * Public to simplify unit tests - not normally called directly.
      */
     public void runAll() {
+        if (parallel && isMonotonic) {
+            runAllBatched();
+            return;
+        }
         while(true) {
             boolean isAdd = false;
             Triple next = nextDeleteTriple();
@@ -489,8 +602,143 @@ public class RETEEngine implements FRuleEngineI {
         while (i.hasNext()) {
             RETEClauseFilter cf = (RETEClauseFilter) i.next();
             // firedRules guard in here?
-            cf.fire(t, isAdd);
+            if (ruleStats == null) {
+                cf.fire(t, isAdd);
+            } else {
+                RuleStats stats = getRuleStats(ruleOf(cf).context.getRule());
+                long start = System.nanoTime();
+                cf.fire(t, isAdd);
+                stats.addMatchTime(System.nanoTime() - start);
+            }
+        }
+    }
+    
+    /**
+     * Process the queues of pending deletes and adds, in batches, until the queues
+     * are empty. Each batch is matched against the network of each rule, in
+     * parallel, holding back the rule firings. The rules are then fired, in rule
+     * order, which may add more triples to the queues.
+     */
+    protected void runAllBatched() {
+        List<RuleNetwork> networks = getRuleNetworks();
+        while(true) {
+            boolean isAdd;
+            List<Triple> batch;
+            synchronized(this) {
+                if (deletesPending.size() > 0) {
+                    batch = takeBatch(deletesPending);
+                    isAdd = false;
+                } else if (addsPending.size() > 0) {
+                    batch = takeBatch(addsPending);
+                    batch.forEach(addsHash::remove);
+                    isAdd = true;
+                } else {
+                    // Monotonic rules only: the conflict set is not used.
+                    return;
+                }
+            }
+            injectBatch(networks, batch, isAdd);
+        }
+    }
+    
+    /** Remove up to batchSize triples from the end of a pending queue */
+    private List<Triple> takeBatch(List<Triple> pending) {
+        int size = pending.size();
+        List<Triple> tail = pending.subList(Math.max(0, size - batchSize), size);
+        List<Triple> batch = new ArrayList<>(tail);
+        tail.clear();
+        return batch;
+    }
+    
+    /**
+     * Inject a batch of triples into the RETE network.
+     */
+    private void injectBatch(List<RuleNetwork> networks, List<Triple> batch, boolean isAdd) {
+        if (infGraph.shouldTrace()) {
+            logger.debug((isAdd ? "Inserting" : "Deleting") + " batch of " + batch.size() + " triples");
+        }
+        Map<Node, List<Triple>> byPredicate = new HashMap<>();
+        for (Triple t : batch) {
+            byPredicate.computeIfAbsent(t.getPredicate(), p -> new ArrayList<>()).add(t);
+        }
+        List<RuleNetwork> active = new ArrayList<>();
+        try {
+            for (RuleNetwork network : networks) {
+                if (network.isTriggered(byPredicate)) {
+                    network.terminal.startDeferring();
+                    active.add(network);
+                }
+            }
+            if (active.size() > 1 && batch.size() >= parallelThreshold) {
+                ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        List<RecursiveAction> tasks = new ArrayList<>(active.size());
+                        for (RuleNetwork network : active) {
+                            tasks.add(new RecursiveAction() {
+                                @Override
+                                protected void compute() {
+                                    network.match(batch, byPredicate, isAdd);
+                                }
+                            });
+                        }
+                        invokeAll(tasks);
+                    }
+                });
+            } else {
+                for (RuleNetwork network : active) {
+                    network.match(batch, byPredicate, isAdd);
+                }
+            }
+            // Fire the rules in a fixed order.
+            for (RuleNetwork network : active) {
+                network.terminal.fireDeferred(isAdd);
+            }
+        } finally {
+            // After an exception, tokens are no longer held back.
+            for (RuleNetwork network : active) {
+                network.terminal.stopDeferring();
+            }
+        }
+    }
+    
+    /**
+     * Return the network of each rule, in rule order.
+     */
+    protected List<RuleNetwork> getRuleNetworks() {
+        if (ruleNetworks == null) {
+            Map<RETETerminal, RuleNetwork> networks = new LinkedHashMap<>();
+            for (Node predicate : clauseIndex.keySet()) {
+                for (Iterator<RETENode> i = clauseIndex.getAll(predicate); i.hasNext(); ) {
+                    RETEClauseFilter cf = (RETEClauseFilter) i.next();
+                    RETETerminal terminal = ruleOf(cf);
+                    networks.computeIfAbsent(terminal, RuleNetwork::new).addClause(predicate, cf);
+                }
+            }
+            List<RuleNetwork> list = new ArrayList<>(networks.values());
+            if (rules != null) {
+                // Rule order, rather than clause index order.
+                Map<Rule, Integer> order = new IdentityHashMap<>();
+                for (int i = 0; i < rules.size(); i++) {
+                    order.putIfAbsent(rules.get(i), i);
+                }
+                list.sort(Comparator.comparingInt(n -> order.getOrDefault(n.terminal.context.getRule(), Integer.MAX_VALUE)));
+            }
+            ruleNetworks = list;
+        }
+        return ruleNetworks;
+    }
+    
+    /**
+     * Find the terminal node reached from a clause filter. Each rule is compiled
+     * to its own network with one terminal.
+     */
+    private static RETETerminal ruleOf(RETEClauseFilter cf) {
+        RETESinkNode node = cf.continuation;
+        while (node instanceof RETEQueue) {
+            node = ((RETEQueue)node).continuation;
         }
+        return (RETETerminal)node;
     }
     
     /**
@@ -600,6 +848,65 @@ public class RETEEngine implements FRuleEngineI {
         }
     }
     
+    /**
+     * The clause filters, and the terminal, of the network for one rule.
+     * The nodes of the network are only used by one thread at a time.
+     */
+    protected class RuleNetwork {
+        
+        /** The terminal node, which fires the rule */
+        protected final RETETerminal terminal;
+        
+        /** The clause filters, by predicate */
+        protected final Map<Node, List<RETEClauseFilter>> clauses = new LinkedHashMap<>();
+        
+        /** The clause filters with a variable predicate */
+        protected final List<RETEClauseFilter> wildcardClauses = new ArrayList<>();
+        
+        /** constructor */
+        RuleNetwork(RETETerminal terminal) {
+            this.terminal = terminal;
+        }
+        
+        void addClause(Node predicate, RETEClauseFilter cf) {
+            if (predicate.equals(Node.ANY)) {
+                wildcardClauses.add(cf);
+            } else {
+                clauses.computeIfAbsent(predicate, p -> new ArrayList<>()).add(cf);
+            }
+        }
+        
+        /** Return true if some triples of the batch may match a clause */
+        boolean isTriggered(Map<Node, List<Triple>> byPredicate) {
+            if (!wildcardClauses.isEmpty()) return true;
+            for (Node predicate : clauses.keySet()) {
+                if (byPredicate.containsKey(predicate)) return true;
+            }
+            return false;
+        }
+        
+        /** Pass the triples of the batch to the clause filters */
+        void match(List<Triple> batch, Map<Node, List<Triple>> byPredicate, boolean isAdd) {
+            RuleStats stats = getRuleStats(terminal.context.getRule());
+            long start = (stats == null) ? 0 : System.nanoTime();
+            for (Map.Entry<Node, List<RETEClauseFilter>> entry : clauses.entrySet()) {
+                List<Triple> triples = byPredicate.get(entry.getKey());
+                if (triples == null) continue;
+                for (RETEClauseFilter cf : entry.getValue()) {
+                    for (Triple t : triples) {
+                        cf.fire(t, isAdd);
+                    }
+                }
+            }
+            for (RETEClauseFilter cf : wildcardClauses) {
+                for (Triple t : batch) {
+                    cf.fire(t, isAdd);
+                }
+            }
+            if (stats != null) stats.addMatchTime(System.nanoTime() - start);
+        }
+    }
+    
     /**
      * Structure used to wrap up processed rule indexes.
      */
@@ -33,6 +33,9 @@ public class RETETerminal implements RETESinkNode {
     /** Context containing the specific rule and parent graph */
     protected RETERuleContext context;
     
+    /** Tokens held back for {@link #fireDeferred}, null if tokens are processed as they arrive */
+    protected List<BindingVector> deferred;
+    
     protected static Logger logger = LoggerFactory.getLogger(FRuleEngine.class);
     
     /**
@@ -72,8 +75,14 @@ public class RETETerminal implements RETESinkNode {
      */
     @Override
     public void fire(BindingVector env, boolean isAdd) {
+        if (deferred != null) {
+            deferred.add(env);
+            return;
+        }
         Rule rule = context.getRule();
         context.setEnv(env);
+        RuleStats stats = context.getEngine().getRuleStats(rule);
+        if (stats != null) stats.addMatch();
         
         if (! context.shouldFire(isAdd)) return;
 
@@ -81,6 +90,36 @@ public class RETETerminal implements RETESinkNode {
         context.getEngine().requestRuleFiring(rule, env, isAdd);
     }
     
+    /**
+     * Start holding back tokens that reach this node until {@link #fireDeferred} is called.
+     * Used when the matching for a batch of triples is done in parallel: the tokens for a
+     * rule are collected by the thread matching that rule and the rule is fired later.
+     */
+    public void startDeferring() {
+        if (deferred == null) deferred = new ArrayList<>();
+    }
+    
+    /**
+     * Process the held back tokens, in the order they arrived, and stop holding back tokens.
+     * @param isAdd distinguishes between add and remove operations; all the tokens
+     * held back come from the same batch of adds or removes.
+     */
+    public void fireDeferred(boolean isAdd) {
+        List<BindingVector> tokens = deferred;
+        deferred = null;
+        if (tokens == null) return;
+        for (BindingVector env : tokens) {
+            fire(env, isAdd);
+        }
+    }
+    
+    /**
+     * Stop holding back tokens, dropping any that have not been processed.
+     */
+    public void stopDeferring() {
+        deferred = null;
+    }
+    
     /**
      * Clone this node in the network.
      * @param netCopy a map from RETENode to cloned instance
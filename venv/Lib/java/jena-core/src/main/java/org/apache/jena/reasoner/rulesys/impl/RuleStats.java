@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.reasoner.rulesys.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jena.reasoner.rulesys.Rule ;
+
+/**
+ * Counters for one rule in a forward rule engine: how often the rule body was
+ * matched and the rule fired, and the time spent matching triples against the
+ * rule body and executing the rule head. Times are in nanoseconds.
+ * <p>
+ * The counters are only collected if enabled on the engine; see
+ * {@link RETEEngine#setRuleStatistics(boolean)}.
+ */
+public class RuleStats {
+
+    /** The rule being counted */
+    protected final Rule rule;
+
+    private final AtomicLong matches = new AtomicLong();
+    private final AtomicLong firings = new AtomicLong();
+    private final AtomicLong matchTime = new AtomicLong();
+    private final AtomicLong fireTime = new AtomicLong();
+
+    /** Constructor */
+    public RuleStats(Rule rule) {
+        this.rule = rule;
+    }
+
+    /** Return the rule */
+    public Rule getRule() {
+        return rule;
+    }
+
+    /** Number of complete matches of the rule body triple patterns */
+    public long getMatches() {
+        return matches.get();
+    }
+
+    /** Number of times the rule has fired */
+    public long getFirings() {
+        return firings.get();
+    }
+
+    /** Time, in nanoseconds, spent matching triples against the rule body */
+    public long getMatchTime() {
+        return matchTime.get();
+    }
+
+    /** Time, in nanoseconds, spent executing the rule head */
+    public long getFireTime() {
+        return fireTime.get();
+    }
+
+    void addMatch() {
+        matches.incrementAndGet();
+    }
+
+    void addMatchTime(long nanos) {
+        matchTime.addAndGet(nanos);
+    }
+
+    void addFiring(long nanos) {
+        firings.incrementAndGet();
+        fireTime.addAndGet(nanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s : matches=%d firings=%d match=%.3fms fire=%.3fms",
+                             rule.toShortString(), getMatches(), getFirings(),
+                             getMatchTime()/1e6, getFireTime()/1e6);
+    }
+}
@@ -100,6 +100,14 @@ public class ReasonerVocabulary {
      *  in the generic rule engine. Default is filtering on. */
     public static final Property PROPenableFunctorFiltering = ruleReasonerProperty( "enableFunctorFiltering" );
     
+    /** Property used to switch on/off batch processing, with rules matched in parallel,
+     *  in the RETE engine of forward and hybrid rule reasoners. Default is off. */
+    public static final Property PROPparallelRETE = ruleReasonerProperty( "parallelRETE" );
+    
+    /** Property used to switch on/off collection of per-rule match and firing counters
+     *  in the RETE engine of forward and hybrid rule reasoners. Default is off. */
+    public static final Property PROPruleStatistics = ruleReasonerProperty( "ruleStatistics" );
+    
     /** Constant for PROPsetRDFSLevel - default behaviour */
     public static final String RDFS_DEFAULT = RDFSRuleReasoner.DEFAULT_RULES;
     
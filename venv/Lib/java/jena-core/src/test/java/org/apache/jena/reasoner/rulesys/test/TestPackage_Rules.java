@@ -61,6 +61,7 @@ public class TestPackage_Rules extends TestSuite {
         addTest( "TestFBRules", TestFBRules.suite() );
         addTest( "TestGenericRules", TestGenericRules.suite() );
         addTest( "TestRETE", TestRETE.suite() );
+        addTest( "TestRETEParallel", TestRETEParallel.suite() );
         addTest( "TestSetRules", TestSetRules.suite() );
         addTest( "TestLPBRuleEngineLeak", TestLPBRuleEngineLeak.suite() );
         addTest( "OWLRuleUnitTests", OWLUnitTest.suite() );
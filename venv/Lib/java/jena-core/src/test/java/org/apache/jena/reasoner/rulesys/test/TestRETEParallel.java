@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.reasoner.rulesys.test;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.apache.jena.graph.* ;
+import org.apache.jena.reasoner.* ;
+import org.apache.jena.reasoner.rulesys.* ;
+import org.apache.jena.reasoner.rulesys.impl.* ;
+import org.apache.jena.vocabulary.OWL ;
+import org.apache.jena.vocabulary.RDF ;
+import org.apache.jena.vocabulary.RDFS ;
+import org.apache.jena.vocabulary.ReasonerVocabulary ;
+
+/**
+ * Test the batch mode of the RETE engine, with rules matched in parallel,
+ * and the per-rule counters.
+ */
+public class TestRETEParallel extends TestCase {
+
+    static final String NS = "http://example/";
+
+    static final String rules =
+        "[trans: (?a <http://example/p> ?b) (?b <http://example/p> ?c) -> (?a <http://example/p> ?c)]" +
+        "[join:  (?a <http://example/p> ?b) (?b <http://example/q> ?c) -> (?a <http://example/r> ?c)]" +
+        "[sym:   (?a <http://example/q> ?b) -> (?b <http://example/q> ?a)]" +
+        "[any:   (?a ?p <http://example/n0>) -> (?a <http://example/s> ?p)]";
+
+    /**
+     * Boilerplate for junit
+     */
+    public TestRETEParallel( String name ) {
+        super( name );
+    }
+
+    /**
+     * Boilerplate for junit.
+     * This is its own test suite
+     */
+    public static TestSuite suite() {
+        return new TestSuite( TestRETEParallel.class );
+    }
+
+    /** Random graph of :p and :q links */
+    private static Graph data(int nodes, int links, long seed) {
+        Random random = new Random(seed);
+        Graph graph = GraphMemFactory.createGraphMem();
+        Node p = NodeFactory.createURI(NS+"p");
+        Node q = NodeFactory.createURI(NS+"q");
+        for ( int i = 0 ; i < links ; i++ ) {
+            Node s = node(random.nextInt(nodes));
+            Node o = node(random.nextInt(nodes));
+            graph.add(Triple.create(s, random.nextInt(3) == 0 ? q : p, o));
+        }
+        return graph;
+    }
+
+    private static Node node(int i) {
+        return NodeFactory.createURI(NS+"n"+i);
+    }
+
+    private static GenericRuleReasoner reasoner(GenericRuleReasoner.RuleMode mode, boolean parallel) {
+        GenericRuleReasoner reasoner = new GenericRuleReasoner(Rule.parseRules(rules));
+        reasoner.setMode(mode);
+        reasoner.setParallelRETE(parallel);
+        return reasoner;
+    }
+
+    private static BasicForwardRuleInfGraph bind(GenericRuleReasoner.RuleMode mode, boolean parallel, Graph data) {
+        return bind(mode, parallel, data, RETEEngine.DEFAULT_BATCH_SIZE);
+    }
+
+    private static BasicForwardRuleInfGraph bind(GenericRuleReasoner.RuleMode mode, boolean parallel, Graph data, int batchSize) {
+        BasicForwardRuleInfGraph infGraph = (BasicForwardRuleInfGraph)reasoner(mode, parallel).bind(data);
+        // Always use the thread pool.
+        infGraph.setParallelRETE(parallel, batchSize, 1);
+        return infGraph;
+    }
+
+    private static Graph deductions(InfGraph infGraph) {
+        infGraph.prepare();
+        Graph graph = GraphMemFactory.createGraphMem();
+        GraphUtil.addInto(graph, infGraph.getDeductionsGraph());
+        return graph;
+    }
+
+    private void testSameDeductions(GenericRuleReasoner.RuleMode mode, Graph data) {
+        testSameDeductions(mode, data, RETEEngine.DEFAULT_BATCH_SIZE);
+    }
+
+    private void testSameDeductions(GenericRuleReasoner.RuleMode mode, Graph data, int batchSize) {
+        Graph expected = deductions(bind(mode, false, data));
+        Graph actual = deductions(bind(mode, true, data, batchSize));
+        assertTrue(expected.size() > 0);
+        assertTrue(expected.isIsomorphicWith(actual));
+    }
+
+    public void testParallelForward1() {
+        testSameDeductions(GenericRuleReasoner.FORWARD_RETE, data(30, 60, 1));
+    }
+
+    public void testParallelForward2() {
+        testSameDeductions(GenericRuleReasoner.FORWARD_RETE, data(100, 150, 2));
+    }
+
+    public void testParallelHybrid() {
+        testSameDeductions(GenericRuleReasoner.HYBRID, data(50, 80, 3));
+    }
+
+    public void testParallelSmallBatches() {
+        testSameDeductions(GenericRuleReasoner.FORWARD_RETE, data(50, 80, 4), 7);
+    }
+
+    public void testParallelRepeatable() {
+        Graph data = data(50, 80, 5);
+        Graph graph1 = deductions(bind(GenericRuleReasoner.FORWARD_RETE, true, data));
+        Graph graph2 = deductions(bind(GenericRuleReasoner.FORWARD_RETE, true, data));
+        assertTrue(graph1.isIsomorphicWith(graph2));
+    }
+
+    public void testParallelAddDelete() {
+        Graph data1 = data(30, 40, 6);
+        Graph data2 = data(30, 40, 6);
+        InfGraph infGraph1 = bind(GenericRuleReasoner.FORWARD_RETE, false, data1);
+        InfGraph infGraph2 = bind(GenericRuleReasoner.FORWARD_RETE, true, data2);
+        infGraph1.prepare();
+        infGraph2.prepare();
+        Graph extra = data(40, 20, 7);
+        extra.find().forEach(t -> {
+            infGraph1.add(t);
+            infGraph2.add(t);
+        });
+        assertTrue(deductions(infGraph1).isIsomorphicWith(deductions(infGraph2)));
+        Triple t = data1.find().next();
+        infGraph1.delete(t);
+        infGraph2.delete(t);
+        assertTrue(deductions(infGraph1).isIsomorphicWith(deductions(infGraph2)));
+    }
+
+    public void testParallelOWLMicro() {
+        Graph data = GraphMemFactory.createGraphMem();
+        Node p1 = node(1001);
+        Node p2 = node(1002);
+        data.add(Triple.create(p1, RDF.Nodes.type, OWL.TransitiveProperty.asNode()));
+        data.add(Triple.create(p2, RDFS.Nodes.subPropertyOf, p1));
+        data.add(Triple.create(p1, RDFS.Nodes.domain, node(2000)));
+        for ( int i = 0 ; i < 40 ; i++ ) {
+            data.add(Triple.create(node(2000+i+1), RDFS.Nodes.subClassOf, node(2000+i/2)));
+            data.add(Triple.create(node(i), RDF.Nodes.type, node(2000+i+1)));
+            data.add(Triple.create(node(i), i % 2 == 0 ? p1 : p2, node(i+1)));
+        }
+        Reasoner reasoner1 = OWLMicroReasonerFactory.theInstance().create(null);
+        Reasoner reasoner2 = OWLMicroReasonerFactory.theInstance().create(null);
+        reasoner2.setParameter(ReasonerVocabulary.PROPparallelRETE, true);
+        Graph expected = deductions(reasoner1.bind(data));
+        BasicForwardRuleInfGraph infGraph2 = (BasicForwardRuleInfGraph)reasoner2.bind(data);
+        infGraph2.setParallelRETE(true, RETEEngine.DEFAULT_BATCH_SIZE, 1);
+        Graph actual = deductions(infGraph2);
+        assertTrue(expected.size() > 0);
+        assertTrue(expected.isIsomorphicWith(actual));
+    }
+
+    public void testRuleStats() {
+        testRuleStats(false);
+        testRuleStats(true);
+    }
+
+    private void testRuleStats(boolean parallel) {
+        GenericRuleReasoner reasoner = reasoner(GenericRuleReasoner.FORWARD_RETE, parallel);
+        reasoner.setParameter(ReasonerVocabulary.PROPruleStatistics, true);
+        Graph data = GraphMemFactory.createGraphMem();
+        Node p = NodeFactory.createURI(NS+"p");
+        // Chain of length 4 : 3 new triples by transitivity.
+        data.add(Triple.create(node(1), p, node(2)));
+        data.add(Triple.create(node(2), p, node(3)));
+        data.add(Triple.create(node(3), p, node(4)));
+        BasicForwardRuleInfGraph infGraph = (BasicForwardRuleInfGraph)reasoner.bind(data);
+        infGraph.prepare();
+        Map<String, RuleStats> stats = new HashMap<>();
+        long firings = 0;
+        for ( RuleStats ruleStats : infGraph.getRuleStats() ) {
+            stats.put(ruleStats.getRule().getName(), ruleStats);
+            firings += ruleStats.getFirings();
+        }
+        assertEquals(infGraph.getNRulesFired(), firings);
+        RuleStats trans = stats.get("trans");
+        assertNotNull(trans);
+        // (1 2 3) (2 3 4) (1 3 4) (1 2 4)
+        assertEquals(4, trans.getMatches());
+        // The second derivation of (1 p 4) fires but adds nothing.
+        assertEquals(4, trans.getFirings());
+        assertTrue(trans.getMatchTime() > 0);
+        assertEquals(0, stats.get("join").getFirings());
+    }
+
+    public void testRuleStatsOff() {
+        GenericRuleReasoner reasoner = reasoner(GenericRuleReasoner.FORWARD_RETE, false);
+        BasicForwardRuleInfGraph infGraph = (BasicForwardRuleInfGraph)reasoner.bind(data(10, 10, 8));
+        infGraph.prepare();
+        assertTrue(infGraph.getRuleStats().isEmpty());
+    }
+}
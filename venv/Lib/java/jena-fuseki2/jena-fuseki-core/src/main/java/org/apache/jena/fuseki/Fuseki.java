@@ -32,6 +32,7 @@ import org.apache.jena.riot.system.stream.LocatorHTTP;
 import org.apache.jena.riot.system.stream.StreamManager;
 import org.apache.jena.sparql.util.Context;
 import org.apache.jena.sparql.util.MappingRegistry;
+import org.apache.jena.sparql.util.Symbol;
 import org.apache.jena.sys.JenaSystem;
 import org.apache.jena.tdb1.TDB1;
 import org.apache.jena.tdb1.transaction.TransactionManager;
@@ -54,6 +55,19 @@ public class Fuseki {
      */
     static public String    FusekiSymbolIRI              = "http://jena.apache.org/fuseki#";
 
+    /**
+     * Context symbol: the maximum size, in bytes, of the cache of SPARQL query results
+     * for a dataset. Not set, or zero, means query results are not cached.
+     */
+    static public final Symbol symResultCacheSize       = Symbol.create(FusekiSymbolIRI+"resultCacheSize");
+
+    /**
+     * Context symbol: the IRIs, separated by spaces or commas, of extension functions
+     * that give the same answer for the same arguments and data. Queries calling other
+     * extension functions are not cached.
+     */
+    static public final Symbol symResultCacheFunctions  = Symbol.create(FusekiSymbolIRI+"resultCacheFunctions");
+
     /** Default location of the pages for the Fuseki UI  */
     static public String    PagesStatic                  = "pages";
 
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.fuseki.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.jena.fuseki.server.QueryResultCache;
+
+/** Metrics for a {@link QueryResultCache}. */
+public class QueryResultCacheMetrics implements MeterBinder {
+
+    private final QueryResultCache cache;
+
+    public QueryResultCacheMetrics(QueryResultCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        String[] tags = { "dataset", cache.getName() };
+        FunctionCounter.builder("fuseki_query_cache_hits", cache, QueryResultCache::getHits)
+            .tags(tags).description("Query result cache hits").register(registry);
+        FunctionCounter.builder("fuseki_query_cache_misses", cache, QueryResultCache::getMisses)
+            .tags(tags).description("Query result cache misses").register(registry);
+        FunctionCounter.builder("fuseki_query_cache_evictions", cache, QueryResultCache::getEvictions)
+            .tags(tags).description("Query result cache evictions").register(registry);
+        Gauge.builder("fuseki_query_cache_entries", cache, QueryResultCache::size)
+            .tags(tags).description("Query result cache entries").register(registry);
+        Gauge.builder("fuseki_query_cache_bytes", cache, QueryResultCache::getBytes)
+            .tags(tags).description("Query result cache size in bytes").register(registry);
+    }
+}
@@ -21,7 +21,12 @@ package org.apache.jena.fuseki.server;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.jena.fuseki.Fuseki;
+import org.apache.jena.fuseki.metrics.MetricsProviderRegistry;
+import org.apache.jena.fuseki.metrics.QueryResultCacheMetrics;
 import org.apache.jena.fuseki.servlets.HttpAction;
+import org.apache.jena.sparql.util.Context;
 
 /**
  * A pairing of name and {@link DataService}, a dataset and its endpoints (which may
@@ -31,6 +36,7 @@ public class DataAccessPoint {
     private final ValidString name;
     private final DataService dataService;
     private AtomicLong requests = new AtomicLong(0);
+    private volatile QueryResultCache resultCache = null;
 
     public DataAccessPoint(String name, DataService dataService) {
         Objects.requireNonNull(name, "DataAccessPoint name");
@@ -75,6 +81,38 @@ public class DataAccessPoint {
         return dataService;
     }
 
+    /**
+     * Return the {@link QueryResultCache} for this {@code DataAccessPoint}, or null if
+     * query results are not cached for requests with this context.
+     * The cache is created on first use, with the size set in the context by
+     * {@link Fuseki#symResultCacheSize}.
+     */
+    public QueryResultCache getResultCache(Context context) {
+        long size = QueryResultCache.cacheSize(context);
+        if ( size <= 0 )
+            return null;
+        QueryResultCache cache = resultCache;
+        if ( cache != null )
+            return cache;
+        synchronized(this) {
+            if ( resultCache == null ) {
+                resultCache = new QueryResultCache(getName(), size);
+                bindMetrics(resultCache);
+            }
+            return resultCache;
+        }
+    }
+
+    private static void bindMetrics(QueryResultCache cache) {
+        try {
+            MeterRegistry meterRegistry = MetricsProviderRegistry.get().getMeterRegistry();
+            if ( meterRegistry != null )
+                new QueryResultCacheMetrics(cache).bindTo(meterRegistry);
+        } catch (Throwable th) {
+            Fuseki.serverLog.error("Failed to bind the query result cache metrics", th);
+        }
+    }
+
     public long requestCount()                          { return requests.get(); }
 
     public void startRequest(HttpAction httpAction)     { requests.incrementAndGet(); }
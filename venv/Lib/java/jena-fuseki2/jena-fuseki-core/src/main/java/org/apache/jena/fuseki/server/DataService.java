@@ -31,6 +31,9 @@ import java.util.function.Consumer;
 import org.apache.commons.collections4.ListValuedMap;
 import org.apache.commons.collections4.MultiMapUtils;
 import org.apache.commons.collections4.MultiValuedMap;
+import org.apache.jena.dboe.transaction.txn.Transaction;
+import org.apache.jena.dboe.transaction.txn.TransactionCoordinator;
+import org.apache.jena.dboe.transaction.txn.TransactionListener;
 import org.apache.jena.fuseki.Fuseki;
 import org.apache.jena.fuseki.FusekiException;
 import org.apache.jena.fuseki.auth.AuthPolicy;
@@ -199,6 +202,7 @@ public class DataService {
 
     public void goActive() {
         ensureEnpointProcessors();
+        listenForCommits();
         offlineInProgress.set(false);
         acceptingRequests.set(true);
         state = ACTIVE;
@@ -250,6 +254,53 @@ public class DataService {
         activeTxn.decrementAndGet();
     }
 
+    // Generation of the data: changes when a write transaction commits.
+    private final AtomicLong generation                 = new AtomicLong(0);
+    private TransactionListener commitListener          = null;
+
+    /**
+     * The generation of the data in the dataset.
+     * This changes whenever a write transaction commits so
+     * information derived from the data, such as cached query results,
+     * can be checked for being up to date.
+     * <p>
+     * Read the generation before starting a read transaction; results
+     * from that transaction are valid for that generation (or earlier).
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /** Note that a write transaction has committed. */
+    public void noteCommit() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * For TDB2, also note commits made other than through Fuseki, e.g. by
+     * application code using the same database in the same JVM.
+     */
+    private synchronized void listenForCommits() {
+        if ( commitListener != null || dataset == null )
+            return;
+        DatasetGraph base = findTDB(dataset);
+        if ( ! isTDB2(base) )
+            return;
+        TransactionCoordinator coordinator = org.apache.jena.tdb2.sys.TDBInternal.getTransactionCoordinator(base);
+        if ( coordinator == null )
+            return;
+        TransactionListener listener = new TransactionListener() {
+            @Override
+            public void notifyCommitFinish(Transaction transaction) {
+                if ( transaction.isWriteTxn() )
+                    noteCommit();
+            }
+        };
+        // The coordinator is in use so the change of configuration must be made in exclusive mode.
+        coordinator.modifyConfig(()->coordinator.addListener(listener));
+        commitListener = listener;
+    }
+
     /** Shutdown and never use again. */
     public synchronized void shutdown() {
         if ( state == CLOSING )
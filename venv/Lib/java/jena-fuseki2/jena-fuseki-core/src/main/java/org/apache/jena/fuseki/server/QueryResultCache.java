@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.fuseki.server;
+
+import static org.apache.jena.riot.web.HttpNames.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.fuseki.Fuseki;
+import org.apache.jena.fuseki.servlets.HttpAction;
+import org.apache.jena.query.Query;
+import org.apache.jena.sparql.ARQConstants;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.OpVisitorBase;
+import org.apache.jena.sparql.algebra.op.OpService;
+import org.apache.jena.sparql.algebra.walker.Walker;
+import org.apache.jena.sparql.expr.*;
+import org.apache.jena.sparql.util.Context;
+
+/**
+ * Cache of the responses to SPARQL queries for a {@link DataAccessPoint}.
+ * <p>
+ * The cache holds the bytes sent for a query result, together with the content
+ * type and charset, keyed by the normalized query (its algebra), the prefixes
+ * of the query, the dataset description and the request details that determine
+ * the result format.
+ * Only SELECT and ASK queries are cached, and not if they use {@code SERVICE},
+ * {@code NOW()} or functions that give different answers each time they are
+ * called, such as {@code RAND()} and {@code UUID()}.
+ * Extension functions, other than XSD casts and the XPath functions, are assumed
+ * not to be cacheable unless listed in {@link Fuseki#symResultCacheFunctions}.
+ * <p>
+ * Entries are valid for one {@linkplain DataService#getGeneration() generation}
+ * of the data; when a write transaction commits, the cache is cleared.
+ * The cache is bounded by the total size of the bytes held and the least
+ * recently used entries are evicted first.
+ * <p>
+ * The cache is enabled by setting {@link Fuseki#symResultCacheSize}
+ * in the context of the dataset or the server.
+ */
+public class QueryResultCache {
+
+    /** A cached response. */
+    public static class Entry {
+        private final String contentType;
+        private final String charset;
+        private final byte[] bytes;
+
+        public Entry(String contentType, String charset, byte[] bytes) {
+            this.contentType = contentType;
+            this.charset = charset;
+            this.bytes = bytes;
+        }
+
+        public String getContentType()  { return contentType; }
+        public String getCharset()      { return charset; }
+        public byte[] getBytes()        { return bytes; }
+    }
+
+    private final String name;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    // Access order, so the first entry is the least recently used.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes = 0;
+    // The data generation of the entries.
+    private long generation = 0;
+
+    private final AtomicLong hits       = new AtomicLong(0);
+    private final AtomicLong misses     = new AtomicLong(0);
+    private final AtomicLong evictions  = new AtomicLong(0);
+
+    /**
+     * Create a cache holding at most {@code maxBytes}.
+     * A single response larger than a quarter of the cache is not cached.
+     */
+    public QueryResultCache(String name, long maxBytes) {
+        if ( maxBytes <= 0 )
+            throw new IllegalArgumentException("Cache size must be positive: "+maxBytes);
+        this.name = name;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.max(1, maxBytes / 4);
+    }
+
+    /**
+     * Return the configured cache size, in bytes, from a context.
+     * Returns -1 if there is no cache.
+     */
+    public static long cacheSize(Context context) {
+        if ( context == null )
+            return -1;
+        long size = context.getLong(Fuseki.symResultCacheSize, -1);
+        return size > 0 ? size : -1;
+    }
+
+    /** Look up an entry for a request reading data of generation {@code dataGeneration}. */
+    public synchronized Entry get(String key, long dataGeneration) {
+        checkGeneration(dataGeneration);
+        Entry entry = ( dataGeneration == generation ) ? entries.get(key) : null;
+        if ( entry == null ) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Add an entry computed from data of generation {@code dataGeneration}.
+     * If the data has changed since, the entry is not added.
+     */
+    public synchronized void put(String key, long dataGeneration, Entry entry) {
+        checkGeneration(dataGeneration);
+        if ( dataGeneration != generation )
+            return;
+        long size = entry.getBytes().length;
+        if ( size > maxEntryBytes )
+            return;
+        Entry previous = entries.put(key, entry);
+        if ( previous != null )
+            currentBytes -= previous.getBytes().length;
+        currentBytes += size;
+        Iterator<Map.Entry<String, Entry>> iter = entries.entrySet().iterator();
+        while ( currentBytes > maxBytes && iter.hasNext() ) {
+            Map.Entry<String, Entry> e = iter.next();
+            currentBytes -= e.getValue().getBytes().length;
+            iter.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    // A newer generation of the data invalidates all the entries.
+    private void checkGeneration(long dataGeneration) {
+        if ( dataGeneration > generation ) {
+            entries.clear();
+            currentBytes = 0;
+            generation = dataGeneration;
+        }
+    }
+
+    /** Start recording a response to be added to this cache. */
+    public Capture capture() {
+        return new Capture(maxEntryBytes);
+    }
+
+    /** Remove all entries. */
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public String getName()             { return name; }
+    public long getMaxBytes()           { return maxBytes; }
+    public synchronized long getBytes() { return currentBytes; }
+    public synchronized int size()      { return entries.size(); }
+    public long getHits()               { return hits.get(); }
+    public long getMisses()             { return misses.get(); }
+    public long getEvictions()          { return evictions.get(); }
+
+    /**
+     * Test whether the results of a query can be cached: a SELECT or ASK query with
+     * no {@code SERVICE}, no functions that change on each call and no extension
+     * functions.
+     * The algebra is {@code Algebra.compile(query)}.
+     */
+    public static boolean isCacheable(Query query, Op op) {
+        return isCacheable(query, op, null);
+    }
+
+    /**
+     * Test whether the results of a query can be cached: a SELECT or ASK query with
+     * no {@code SERVICE}, no functions that change on each call and no extension
+     * functions other than those listed in {@link Fuseki#symResultCacheFunctions}
+     * in the context.
+     * The algebra is {@code Algebra.compile(query)}.
+     */
+    public static boolean isCacheable(Query query, Op op, Context context) {
+        if ( ! query.isSelectType() && ! query.isAskType() )
+            return false;
+        try {
+            checkCacheable(op, cacheableFunctions(context));
+            return true;
+        } catch (NotCacheable ex) {
+            return false;
+        }
+    }
+
+    private static Set<String> cacheableFunctions(Context context) {
+        if ( context == null )
+            return Set.of();
+        String x = context.getAsString(Fuseki.symResultCacheFunctions);
+        if ( x == null || x.isBlank() )
+            return Set.of();
+        return Set.copyOf(List.of(x.trim().split("[\\s,]+")));
+    }
+
+    // Walks into EXISTS and NOT EXISTS.
+    private static void checkCacheable(Op op, Set<String> functions) {
+        Walker.walk(op, new OpVisitorBase() {
+            @Override public void visit(OpService opService) { throw new NotCacheable(); }
+        }, exprVisitorCacheable(functions));
+    }
+
+    private static ExprVisitor exprVisitorCacheable(Set<String> functions) {
+        return new ExprVisitorBase() {
+            @Override public void visit(ExprFunction0 func) { check(func); }
+            @Override public void visit(ExprFunction1 func) { check(func); }
+            @Override public void visit(ExprFunction2 func) { check(func); }
+            @Override public void visit(ExprFunction3 func) { check(func); }
+            @Override public void visit(ExprFunctionN func) { check(func); }
+
+            private void check(ExprFunction exprFn) {
+                if ( exprFn instanceof Unstable || exprFn instanceof E_Now )
+                    throw new NotCacheable();
+                // Extension functions may call out, or depend on state, and
+                // may not be the same on each call.
+                if ( exprFn instanceof E_Function function ) {
+                    String iri = function.getFunctionIRI();
+                    if ( ! isBuiltinFunction(iri) && ! functions.contains(iri) )
+                        throw new NotCacheable();
+                }
+            }
+        };
+    }
+
+    // XSD casts and the XPath functions and operators.
+    private static boolean isBuiltinFunction(String iri) {
+        return iri.startsWith(XSDDatatype.XSD+"#")
+            || iri.startsWith(ARQConstants.fnPrefix)
+            || iri.startsWith(ARQConstants.mathPrefix);
+    }
+
+    private static class NotCacheable extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        NotCacheable() { super(null, null, false, false); }
+    }
+
+    /**
+     * The cache key for a query request. This includes the query algebra, the
+     * dataset description, the endpoint, the user and the request details for the
+     * choice of result format. The prefixes are included because some formats,
+     * such as text, use them in the results. The algebra is {@code Algebra.compile(query)}.
+     */
+    public static String key(HttpAction action, Query query, Op op) {
+        StringBuilder sb = new StringBuilder();
+        Endpoint endpoint = action.getEndpoint();
+        addKey(sb, "endpoint", endpoint == null ? null : endpoint.getName());
+        addKey(sb, "user", action.getUser());
+        addKey(sb, "type", query.queryType().name());
+        addKey(sb, "from", query.getGraphURIs().toString());
+        addKey(sb, "fromNamed", query.getNamedGraphURIs().toString());
+        addKey(sb, "prefixes", new TreeMap<>(query.getPrefixMapping().getNsPrefixMap()).toString());
+        addParamKey(sb, action, paramDefaultGraphURI);
+        addParamKey(sb, action, paramNamedGraphURI);
+        addKey(sb, hAccept, action.getRequestHeader(hAccept));
+        addParamKey(sb, action, paramAccept);
+        addParamKey(sb, action, paramOutput1);
+        addParamKey(sb, action, paramOutput2);
+        addParamKey(sb, action, paramOutput3);
+        addParamKey(sb, action, paramStyleSheet);
+        addParamKey(sb, action, paramCallback);
+        addParamKey(sb, action, paramForceAccept);
+        sb.append(op.toString());
+        return sb.toString();
+    }
+
+    private static void addParamKey(StringBuilder sb, HttpAction action, String paramName) {
+        String[] values = action.getRequestParameterValues(paramName);
+        if ( values == null )
+            return;
+        for ( String v : values )
+            addKey(sb, paramName, v);
+    }
+
+    private static void addKey(StringBuilder sb, String name, String value) {
+        if ( value == null )
+            return;
+        sb.append(name).append('=').append(value.replace("\n", "\\n")).append('\n');
+    }
+
+    /**
+     * Record the bytes of a response, as they are written, so they can be added to
+     * the cache after the response has been sent. Recording stops if the response
+     * becomes larger than the limit.
+     */
+    public static class Capture {
+        private final long limit;
+        private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private String contentType = null;
+        private String charset = null;
+
+        public Capture(long limit) {
+            this.limit = limit;
+        }
+
+        /** Record the HTTP content type and charset of the response. */
+        public void setContentType(String contentType, String charset) {
+            this.contentType = contentType;
+            this.charset = charset;
+        }
+
+        /** Return an {@link OutputStream} that writes to {@code out} and records the bytes. */
+        public OutputStream tee(OutputStream out) {
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    if ( bytes != null ) {
+                        bytes.write(b);
+                        checkLimit();
+                    }
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    if ( bytes != null ) {
+                        bytes.write(b, off, len);
+                        checkLimit();
+                    }
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    out.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    out.close();
+                }
+            };
+        }
+
+        private void checkLimit() {
+            if ( bytes.size() > limit )
+                bytes = null;
+        }
+
+        /** Do not cache this response; for example, the results were truncated. */
+        public void abandon() {
+            bytes = null;
+        }
+
+        /** The entry for the response, or null if it can not be cached. */
+        public Entry entry() {
+            if ( bytes == null || contentType == null )
+                return null;
+            return new Entry(contentType, charset, bytes.toByteArray());
+        }
+    }
+}
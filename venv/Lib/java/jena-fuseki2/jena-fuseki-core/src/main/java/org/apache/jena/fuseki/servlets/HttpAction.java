@@ -334,6 +334,8 @@ public class HttpAction
     public void commit() {
         dataService.finishTxn();
         transactional.commit();
+        // After the commit so that anything computed from the old data is out of date.
+        dataService.noteCommit();
         end();
     }
 
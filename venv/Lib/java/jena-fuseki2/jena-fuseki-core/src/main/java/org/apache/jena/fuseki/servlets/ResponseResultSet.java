@@ -35,6 +35,7 @@ import org.apache.jena.atlas.web.AcceptList;
 import org.apache.jena.atlas.web.MediaType;
 import org.apache.jena.fuseki.DEF;
 import org.apache.jena.fuseki.FusekiException;
+import org.apache.jena.fuseki.server.QueryResultCache;
 import org.apache.jena.fuseki.system.ConNeg;
 import org.apache.jena.query.QueryCancelledException;
 import org.apache.jena.query.ResultSet;
@@ -79,17 +80,33 @@ public class ResponseResultSet
     interface OutputContent { void output(OutputStream out) throws IOException; }
 
     public static void doResponseResultSet(HttpAction action, Boolean booleanResult) {
-        doResponseResultSet$(action, null, booleanResult, null, DEF.rsOfferBoolean);
+        doResponseResultSet(action, booleanResult, null);
     }
 
     public static void doResponseResultSet(HttpAction action, ResultSet resultSet, Prologue qPrologue) {
-        doResponseResultSet$(action, resultSet, null, qPrologue, DEF.rsOfferTable);
+        doResponseResultSet(action, resultSet, qPrologue, null);
+    }
+
+    /** Send a boolean result, recording the response in {@code capture} if it is not null. */
+    public static void doResponseResultSet(HttpAction action, Boolean booleanResult, QueryResultCache.Capture capture) {
+        doResponseResultSet$(action, null, booleanResult, null, DEF.rsOfferBoolean, capture);
+    }
+
+    /** Send a result set, recording the response in {@code capture} if it is not null. */
+    public static void doResponseResultSet(HttpAction action, ResultSet resultSet, Prologue qPrologue, QueryResultCache.Capture capture) {
+        doResponseResultSet$(action, resultSet, null, qPrologue, DEF.rsOfferTable, capture);
+    }
+
+    /** Send a response from the query result cache. */
+    public static void doResponseCached(HttpAction action, QueryResultCache.Entry entry) {
+        output(action, entry.getContentType(), entry.getCharset(), out->out.write(entry.getBytes()), null);
     }
 
     // One or the other argument must be null
     private static void doResponseResultSet$(HttpAction action,
                                              ResultSet resultSet, Boolean booleanResult,
-                                             Prologue qPrologue, AcceptList contentTypeOffer) {
+                                             Prologue qPrologue, AcceptList contentTypeOffer,
+                                             QueryResultCache.Capture capture) {
         HttpServletRequest request = action.getRequest();
         long id = action.id;
 
@@ -145,7 +162,7 @@ public class ResponseResultSet
         // (2) there is no boolean result form.
 
         if ( Objects.equals(serializationType, contentTypeTextPlain) ) {
-            textOutput(action, contentType, resultSet, qPrologue, booleanResult);
+            textOutput(action, contentType, resultSet, qPrologue, booleanResult, capture);
             return;
         }
 
@@ -180,10 +197,11 @@ public class ResponseResultSet
 
 
         // Finally, the general case
-        generalOutput(action, lang, contentType, charset, cxt, jsonCallback, resultSet, booleanResult);
+        generalOutput(action, lang, contentType, charset, cxt, jsonCallback, resultSet, booleanResult, capture);
     }
 
-    private static void textOutput(HttpAction action, String contentType, ResultSet resultSet, Prologue qPrologue, Boolean booleanResult) {
+    private static void textOutput(HttpAction action, String contentType, ResultSet resultSet, Prologue qPrologue, Boolean booleanResult,
+                                   QueryResultCache.Capture capture) {
         // Text is not streaming.
         OutputContent proc = out -> {
             if ( resultSet != null )
@@ -192,14 +210,15 @@ public class ResponseResultSet
                 ResultSetFormatter.out(out, booleanResult.booleanValue());
         };
 
-        output(action, contentType, charsetUTF8, proc);
+        output(action, contentType, charsetUTF8, proc, capture);
     }
 
     /** Any format */
     private static void generalOutput(HttpAction action, Lang rsLang,
                                       String contentType, String charset,
                                       Context context, String callback,
-                                      ResultSet resultSet, Boolean booleanResult) {
+                                      ResultSet resultSet, Boolean booleanResult,
+                                      QueryResultCache.Capture capture) {
         ResultsWriter rw = ResultsWriter.create()
             .lang(rsLang)
             .context(context)
@@ -220,19 +239,27 @@ public class ResponseResultSet
                 out.write(')'); out.write('\n');
             }
         };
-        output(action, contentType, charset, proc);
+        output(action, contentType, charset, proc, capture);
     }
 
     // Set HTTP response and execute OutputContent inside try-catch.
-    private static void output(HttpAction action, String contentType, String charset, OutputContent proc) {
+    // If capture is not null, the response is also recorded for the query result cache.
+    private static void output(HttpAction action, String contentType, String charset, OutputContent proc,
+                               QueryResultCache.Capture capture) {
         try {
             ResponseOps.setHttpResponse(action, contentType, charset);
             ServletOps.success(action);
             OutputStream out = action.getResponseOutputStream();
+            if ( capture != null ) {
+                capture.setContentType(contentType, charset);
+                out = capture.tee(out);
+            }
             try {
                 proc.output(out);
                 out.flush();
             } catch (QueryCancelledException ex) {
+                if ( capture != null )
+                    capture.abandon();
                 // Status code 200 may have already been sent.
                 // We can try to set the HTTP response code anyway.
                 // Breaking the results is the best we can do to indicate the timeout.
@@ -40,10 +40,14 @@ import org.apache.jena.atlas.json.JsonObject;
 import org.apache.jena.atlas.lib.Pair;
 import org.apache.jena.atlas.web.ContentType;
 import org.apache.jena.fuseki.Fuseki;
+import org.apache.jena.fuseki.server.DataAccessPoint;
+import org.apache.jena.fuseki.server.QueryResultCache;
 import org.apache.jena.fuseki.system.FusekiNetLib;
 import org.apache.jena.query.*;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.riot.web.HttpNames;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.algebra.Op;
 import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.core.Prologue;
 import org.apache.jena.sparql.engine.Timeouts;
@@ -267,6 +271,26 @@ public abstract class SPARQLQueryProcessor extends ActionService
             ServletOps.errorBadRequest("Error: \n" + queryString + "\n" + msg);
         }
 
+        // Query result cache, if enabled for the dataset.
+        QueryResultCache cache = resultCache(action);
+        String cacheKey = null;
+        long generation = -1;
+        if ( cache != null ) {
+            Op op = Algebra.compile(query);
+            if ( QueryResultCache.isCacheable(query, op, action.getContext()) ) {
+                cacheKey = QueryResultCache.key(action, query, op);
+                // Before the read transaction starts: the results are
+                // for this generation of the data or a later one.
+                generation = action.getDataService().getGeneration();
+                QueryResultCache.Entry entry = cache.get(cacheKey, generation);
+                if ( entry != null ) {
+                    action.log.info(format("[%d] Query results from cache", action.id));
+                    ResponseResultSet.doResponseCached(action, entry);
+                    return;
+                }
+            }
+        }
+
         // Assumes finished whole thing by end of sendResult.
         try {
             action.beginRead();
@@ -279,7 +303,15 @@ public abstract class SPARQLQueryProcessor extends ActionService
             try ( QueryExecution qExec = createQueryExecution(action, q, dataset); ) {
                 SPARQLResult result = executeQuery(action, qExec, query, queryStringLog);
                 // Deals with exceptions itself.
-                sendResults(action, result, query.getPrologue());
+                if ( cacheKey == null )
+                    sendResults(action, result, query.getPrologue());
+                else {
+                    QueryResultCache.Capture capture = cache.capture();
+                    sendResults(action, result, query.getPrologue(), capture);
+                    QueryResultCache.Entry entry = capture.entry();
+                    if ( entry != null )
+                        cache.put(cacheKey, generation, entry);
+                }
             }
         }
         catch (QueryParseException ex) {
@@ -293,6 +325,14 @@ public abstract class SPARQLQueryProcessor extends ActionService
         } finally { action.endRead(); }
     }
 
+    /** The query result cache for the action, or null if there isn't one. */
+    private static QueryResultCache resultCache(HttpAction action) {
+        DataAccessPoint dataAccessPoint = action.getDataAccessPoint();
+        if ( dataAccessPoint == null || action.getDataService() == null )
+            return null;
+        return dataAccessPoint.getResultCache(action.getContext());
+    }
+
     /**
      * Check the query - if unacceptable, throw ActionErrorException
      * or call on of the {@link ServletOps#error} operations.
@@ -447,6 +487,24 @@ public abstract class SPARQLQueryProcessor extends ActionService
             ServletOps.errorOccurred("Unknown or invalid result type");
     }
 
+    /** Ship the results to the remote caller, recording the response for the query result cache.
+     * @param action
+     * @param result
+     * @param qPrologue
+     * @param capture
+     */
+    protected void sendResults(HttpAction action, SPARQLResult result, Prologue qPrologue, QueryResultCache.Capture capture) {
+        if ( result.isResultSet() )
+            ResponseResultSet.doResponseResultSet(action, result.getResultSet(), qPrologue, capture);
+        else if ( result.isBoolean() )
+            ResponseResultSet.doResponseResultSet(action, result.getBooleanResult(), capture);
+        else {
+            // Only SELECT and ASK results are cached.
+            capture.abandon();
+            sendResults(action, result, qPrologue);
+        }
+    }
+
     private String formatForLog(Query query) {
         IndentedLineBuffer out = new IndentedLineBuffer();
         out.setFlatMode(true);
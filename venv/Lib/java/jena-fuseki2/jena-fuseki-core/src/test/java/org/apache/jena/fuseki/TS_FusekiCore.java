@@ -19,6 +19,7 @@
 package org.apache.jena.fuseki;
 
 import org.apache.jena.fuseki.server.TestDispatchOnURI;
+import org.apache.jena.fuseki.server.TestQueryResultCache;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
@@ -27,7 +28,8 @@ import org.junit.runners.Suite.SuiteClasses;
 @RunWith(Suite.class)
 @SuiteClasses({
     TestValidators.class,
-    TestDispatchOnURI.class
+    TestDispatchOnURI.class,
+    TestQueryResultCache.class
 })
 public class TS_FusekiCore {}
 
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.fuseki.server;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.jena.fuseki.Fuseki;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.util.Context;
+import org.junit.Test;
+
+public class TestQueryResultCache {
+
+    private static QueryResultCache.Entry entry(int size) {
+        return new QueryResultCache.Entry("application/sparql-results+json", "utf-8", new byte[size]);
+    }
+
+    @Test public void cache_get_put() {
+        QueryResultCache cache = new QueryResultCache("/ds", 1000);
+        assertNull(cache.get("A", 0));
+        cache.put("A", 0, entry(10));
+        assertNotNull(cache.get("A", 0));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(10, cache.getBytes());
+    }
+
+    @Test public void cache_generation_1() {
+        QueryResultCache cache = new QueryResultCache("/ds", 1000);
+        cache.put("A", 0, entry(10));
+        // Data changed.
+        assertNull(cache.get("A", 1));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test public void cache_generation_2() {
+        QueryResultCache cache = new QueryResultCache("/ds", 1000);
+        assertNull(cache.get("A", 1));
+        // Results computed from data that has since changed.
+        cache.put("A", 0, entry(10));
+        assertEquals(0, cache.size());
+        assertNull(cache.get("A", 1));
+    }
+
+    @Test public void cache_evict() {
+        QueryResultCache cache = new QueryResultCache("/ds", 100);
+        cache.put("A", 0, entry(25));
+        cache.put("B", 0, entry(25));
+        cache.put("C", 0, entry(25));
+        cache.put("D", 0, entry(25));
+        // Use A so B is the least recently used.
+        assertNotNull(cache.get("A", 0));
+        cache.put("E", 0, entry(25));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(100, cache.getBytes());
+        assertNull(cache.get("B", 0));
+        assertNotNull(cache.get("A", 0));
+        assertNotNull(cache.get("E", 0));
+    }
+
+    @Test public void cache_too_large() {
+        QueryResultCache cache = new QueryResultCache("/ds", 100);
+        cache.put("A", 0, entry(26));
+        assertEquals(0, cache.size());
+    }
+
+    @Test public void cache_replace() {
+        QueryResultCache cache = new QueryResultCache("/ds", 100);
+        cache.put("A", 0, entry(10));
+        cache.put("A", 0, entry(20));
+        assertEquals(1, cache.size());
+        assertEquals(20, cache.getBytes());
+    }
+
+    @Test public void capture_1() throws IOException {
+        QueryResultCache cache = new QueryResultCache("/ds", 100);
+        QueryResultCache.Capture capture = cache.capture();
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        capture.setContentType("text/plain", "utf-8");
+        OutputStream out = capture.tee(bout);
+        out.write(new byte[] {1, 2, 3});
+        out.write(4);
+        QueryResultCache.Entry entry = capture.entry();
+        assertNotNull(entry);
+        assertArrayEquals(bout.toByteArray(), entry.getBytes());
+        assertEquals("text/plain", entry.getContentType());
+    }
+
+    @Test public void capture_2() throws IOException {
+        QueryResultCache cache = new QueryResultCache("/ds", 100);
+        QueryResultCache.Capture capture = cache.capture();
+        capture.setContentType("text/plain", "utf-8");
+        OutputStream out = capture.tee(new ByteArrayOutputStream());
+        // Over the limit for one entry.
+        out.write(new byte[30]);
+        assertNull(capture.entry());
+    }
+
+    @Test public void capture_3() throws IOException {
+        QueryResultCache cache = new QueryResultCache("/ds", 100);
+        QueryResultCache.Capture capture = cache.capture();
+        capture.setContentType("text/plain", "utf-8");
+        OutputStream out = capture.tee(new ByteArrayOutputStream());
+        out.write(new byte[3]);
+        capture.abandon();
+        assertNull(capture.entry());
+    }
+
+    @Test public void cacheable_1() {
+        assertTrue(cacheable("SELECT * { ?s ?p ?o }"));
+        assertTrue(cacheable("ASK { ?s ?p ?o FILTER(?o > 10) }"));
+        assertTrue(cacheable("SELECT (str(?o) AS ?x) { ?s ?p ?o } ORDER BY ?x LIMIT 10"));
+    }
+
+    @Test public void cacheable_2() {
+        assertFalse(cacheable("CONSTRUCT WHERE { ?s ?p ?o }"));
+        assertFalse(cacheable("DESCRIBE <http://example/s>"));
+    }
+
+    @Test public void cacheable_3() {
+        assertFalse(cacheable("SELECT * { ?s ?p ?o FILTER(rand() < 0.5) }"));
+        assertFalse(cacheable("SELECT (NOW() AS ?now) {}"));
+        assertFalse(cacheable("SELECT * { ?s ?p ?o BIND(UUID() AS ?u) }"));
+        assertFalse(cacheable("SELECT * { SERVICE <http://example/sparql> { ?s ?p ?o } }"));
+        assertFalse(cacheable("SELECT * { ?s ?p ?o FILTER NOT EXISTS { BIND(BNODE() AS ?b) } }"));
+    }
+
+    @Test public void cacheable_4() {
+        // Extension functions
+        assertFalse(cacheable("SELECT * { ?s ?p ?o FILTER(<http://example/f>(?o)) }"));
+        assertFalse(cacheable("SELECT * { ?s ?p ?o FILTER NOT EXISTS { ?s ?p ?o BIND(<http://example/f>(?o) AS ?x) } }"));
+        // XSD casts and XPath functions
+        assertTrue(cacheable("PREFIX xsd: <http://www.w3.org/2001/XMLSchema#> SELECT * { ?s ?p ?o FILTER(xsd:integer(?o) > 1) }"));
+        assertTrue(cacheable("PREFIX fn: <http://www.w3.org/2005/xpath-functions#> SELECT * { ?s ?p ?o FILTER(fn:upper-case(?o) = 'A') }"));
+    }
+
+    @Test public void cacheable_5() {
+        // Extension functions listed as cacheable.
+        Context context = new Context();
+        context.set(Fuseki.symResultCacheFunctions, "http://example/f, http://example/g");
+        assertTrue(cacheable("SELECT * { ?s ?p ?o FILTER(<http://example/f>(?o)) }", context));
+        assertTrue(cacheable("SELECT * { ?s ?p ?o FILTER(<http://example/g>(?o)) }", context));
+        assertFalse(cacheable("SELECT * { ?s ?p ?o FILTER(<http://example/h>(?o)) }", context));
+        assertFalse(cacheable("SELECT * { ?s ?p ?o FILTER(<http://example/f>(rand())) }", context));
+    }
+
+    private static boolean cacheable(String queryString) {
+        Query query = QueryFactory.create(queryString);
+        return QueryResultCache.isCacheable(query, Algebra.compile(query));
+    }
+
+    private static boolean cacheable(String queryString, Context context) {
+        Query query = QueryFactory.create(queryString);
+        return QueryResultCache.isCacheable(query, Algebra.compile(query), context);
+    }
+}
@@ -47,6 +47,8 @@ import org.junit.runners.Suite.SuiteClasses;
 
   , TestQuery.class
   , TestSPARQLProtocol.class
+  , TestQueryResultCache.class
+  , TestServiceBulk.class
 
   , TestPatchFuseki.class
   , TestFusekiCustomScriptFunc.class
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.fuseki.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.jena.atlas.lib.IRILib;
+import org.apache.jena.atlas.web.WebLib;
+import org.apache.jena.fuseki.Fuseki;
+import org.apache.jena.fuseki.server.DataAccessPoint;
+import org.apache.jena.fuseki.server.QueryResultCache;
+import org.apache.jena.http.HttpOp;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.rdfconnection.RDFConnection;
+import org.apache.jena.riot.WebContent;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.DatabaseMgr;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** The query result cache in a running server. */
+public class TestQueryResultCache {
+    private static FusekiServer server = null;
+    private static String serverURL = null;
+    private static DatasetGraph dsgMem = DatasetGraphFactory.createTxnMem();
+    private static DatasetGraph dsgTDB2 = DatabaseMgr.createDatasetGraph();
+
+    private static final String QUERY = "SELECT (count(*) AS ?c) { ?s ?p ?o }";
+
+    @BeforeClass
+    public static void beforeClass() {
+        dsgMem.getContext().set(Fuseki.symResultCacheSize, 100_000L);
+        dsgTDB2.getContext().set(Fuseki.symResultCacheSize, 100_000L);
+        int port = WebLib.choosePort();
+        server = FusekiServer.create()
+            .port(port)
+            .add("/ds", dsgMem)
+            .add("/tdb2", dsgTDB2)
+            .add("/nocache", DatasetGraphFactory.createTxnMem())
+            .build();
+        server.start();
+        serverURL = "http://localhost:"+port;
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        if ( server != null )
+            server.stop();
+    }
+
+    @Before
+    public void before() {
+        try ( RDFConnection conn = RDFConnection.connect(serverURL+"/ds") ) {
+            conn.update("CLEAR ALL ; INSERT DATA { <http://example/s> <http://example/p> 1 }");
+        }
+    }
+
+    private static QueryResultCache cache(String name) {
+        DataAccessPoint dap = server.getDataAccessPointRegistry().get(name);
+        return dap.getResultCache(dap.getDataService().getDataset().getContext());
+    }
+
+    private static long count(String datasetURL) {
+        return count(datasetURL, QUERY);
+    }
+
+    private static long count(String datasetURL, String queryString) {
+        try ( RDFConnection conn = RDFConnection.connect(datasetURL) ) {
+            try ( QueryExecution qExec = conn.query(queryString) ) {
+                ResultSet rs = qExec.execSelect();
+                return rs.next().getLiteral("c").getLong();
+            }
+        }
+    }
+
+    @Test
+    public void cache_hit() {
+        QueryResultCache cache = cache("/ds");
+        long hits = cache.getHits();
+        assertEquals(1, count(serverURL+"/ds"));
+        assertEquals(1, count(serverURL+"/ds"));
+        assertEquals(hits+1, cache.getHits());
+    }
+
+    @Test
+    public void cache_normalized() {
+        QueryResultCache cache = cache("/ds");
+        count(serverURL+"/ds", "PREFIX : <http://example/> SELECT (count(*) AS ?c) { ?s :p ?o }");
+        long hits = cache.getHits();
+        // Same algebra and prefixes.
+        count(serverURL+"/ds", "PREFIX : <http://example/>\nSELECT   (count(*) AS ?c)\n{ ?s <http://example/p> ?o . }");
+        assertEquals(hits+1, cache.getHits());
+    }
+
+    @Test
+    public void cache_prefixes() {
+        // The text format uses the prefixes of the query.
+        String text1 = httpGet(serverURL+"/ds", "PREFIX ex: <http://example/> SELECT ?s { ?s ?p ?o }", WebContent.contentTypeTextPlain);
+        String text2 = httpGet(serverURL+"/ds", "PREFIX other: <http://example/> SELECT ?s { ?s ?p ?o }", WebContent.contentTypeTextPlain);
+        assertTrue(text1, text1.contains("ex:s"));
+        assertTrue(text2, text2.contains("other:s"));
+    }
+
+    @Test
+    public void cache_update() {
+        assertEquals(1, count(serverURL+"/ds"));
+        try ( RDFConnection conn = RDFConnection.connect(serverURL+"/ds") ) {
+            conn.update("INSERT DATA { <http://example/s> <http://example/p> 2 }");
+        }
+        assertEquals(2, count(serverURL+"/ds"));
+    }
+
+    @Test
+    public void cache_format() {
+        QueryResultCache cache = cache("/ds");
+        String json1 = httpGet(serverURL+"/ds", WebContent.contentTypeResultsJSON);
+        String xml1 = httpGet(serverURL+"/ds", WebContent.contentTypeResultsXML);
+        long hits = cache.getHits();
+        String json2 = httpGet(serverURL+"/ds", WebContent.contentTypeResultsJSON);
+        String xml2 = httpGet(serverURL+"/ds", WebContent.contentTypeResultsXML);
+        assertEquals(hits+2, cache.getHits());
+        assertEquals(json1, json2);
+        assertEquals(xml1, xml2);
+        assertNotEquals(json1, xml1);
+    }
+
+    @Test
+    public void cache_not_cacheable() {
+        QueryResultCache cache = cache("/ds");
+        String qs = "SELECT (count(*) AS ?c) { ?s ?p ?o FILTER(rand() < 2) }";
+        count(serverURL+"/ds", qs);
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        count(serverURL+"/ds", qs);
+        assertEquals(hits, cache.getHits());
+        assertEquals(misses, cache.getMisses());
+    }
+
+    @Test
+    public void cache_tdb2_direct_update() {
+        long n1 = count(serverURL+"/tdb2");
+        assertEquals(n1, count(serverURL+"/tdb2"));
+        // Update the database other than by a Fuseki request.
+        Quad quad = SSE.parseQuad("(_ <http://example/s> <http://example/p> "+n1+")");
+        Txn.executeWrite(dsgTDB2, ()->dsgTDB2.add(quad));
+        assertEquals(n1+1, count(serverURL+"/tdb2"));
+    }
+
+    @Test
+    public void cache_none() {
+        assertEquals(0, count(serverURL+"/nocache"));
+        DataAccessPoint dap = server.getDataAccessPointRegistry().get("/nocache");
+        assertNull(dap.getResultCache(dap.getDataService().getDataset().getContext()));
+    }
+
+    private static String httpGet(String datasetURL, String accept) {
+        return httpGet(datasetURL, QUERY, accept);
+    }
+
+    private static String httpGet(String datasetURL, String queryString, String accept) {
+        String url = datasetURL+"?query="+IRILib.encodeUriComponent(queryString);
+        return HttpOp.httpGetString(url, accept);
+    }
+}
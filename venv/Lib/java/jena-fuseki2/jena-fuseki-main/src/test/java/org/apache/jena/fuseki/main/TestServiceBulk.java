@@ -0,0 +1,332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.fuseki.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.atlas.lib.Lib;
+import org.apache.jena.atlas.logging.LogCtl;
+import org.apache.jena.atlas.web.WebLib;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.ARQ;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.query.TxnType;
+import org.apache.jena.sparql.ARQConstants;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.DatasetGraphWrapper;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.QueryEngineRegistry;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.binding.BindingRoot;
+import org.apache.jena.sparql.engine.http.QueryExceptionHTTP;
+import org.apache.jena.sparql.exec.QueryExec;
+import org.apache.jena.sparql.exec.http.Service;
+import org.apache.jena.sparql.service.ServiceExecutorRegistry;
+import org.apache.jena.sparql.service.bulk.ChainingServiceExecutorBulkConcurrent;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.sparql.util.Context;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+/** Bulk SERVICE execution against a Fuseki server. */
+public class TestServiceBulk {
+    private static FusekiServer server = null;
+    private static String serviceURL = null;
+    private static CountingDatasetGraph remote;
+    private static DatasetGraph local = DatasetGraphFactory.createTxnMem();
+
+    private static final String NS = "http://example/";
+    private static final int N = 200;
+    private static final int DISTINCT = 50;
+
+    /** Counts transactions, which is one per query, and how many are active at once. */
+    static class CountingDatasetGraph extends DatasetGraphWrapper {
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+
+        CountingDatasetGraph(DatasetGraph dsg) {
+            super(dsg);
+        }
+
+        @Override
+        public void begin(TxnType type) {
+            started();
+            super.begin(type);
+        }
+
+        @Override
+        public void begin(ReadWrite readWrite) {
+            started();
+            super.begin(readWrite);
+        }
+
+        private void started() {
+            requests.incrementAndGet();
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            // Make requests overlap.
+            Lib.sleep(5);
+        }
+
+        @Override
+        public void end() {
+            active.decrementAndGet();
+            super.end();
+        }
+
+        void reset() {
+            requests.set(0);
+            maxActive.set(0);
+        }
+    }
+
+    @BeforeClass
+    public static void beforeClass() {
+        // :x_i :link :y_j, with N links to DISTINCT targets.
+        for ( int i = 0 ; i < N ; i++ )
+            local.add(Quad.defaultGraphIRI, uri("x"+i), uri("link"), uri("y"+(i % DISTINCT)));
+        // Two names for even y, none for some.
+        DatasetGraph dsg = DatasetGraphFactory.createTxnMem();
+        for ( int j = 0 ; j < DISTINCT ; j++ ) {
+            if ( j % 5 == 4 )
+                continue;
+            dsg.add(Quad.defaultGraphIRI, uri("y"+j), uri("name"), NodeFactory.createLiteralString("name"+j));
+            if ( j % 2 == 0 )
+                dsg.add(Quad.defaultGraphIRI, uri("y"+j), uri("name"), NodeFactory.createLiteralString("other"+j));
+            dsg.add(Quad.defaultGraphIRI, uri("y"+j), uri("size"), NodeFactory.createLiteral(Integer.toString(j), XSDDatatype.XSDinteger));
+        }
+        remote = new CountingDatasetGraph(dsg);
+        int port = WebLib.choosePort();
+        server = FusekiServer.create()
+            .port(port)
+            .add("/ds", remote)
+            .build();
+        server.start();
+        serviceURL = "http://localhost:"+port+"/ds";
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        if ( server != null )
+            server.stop();
+    }
+
+    @Before
+    public void before() {
+        remote.reset();
+    }
+
+    private static Node uri(String localName) {
+        return NodeFactory.createURI(NS+localName);
+    }
+
+    private static String query(String servicePattern) {
+        return "PREFIX : <"+NS+"> SELECT * { ?x :link ?y SERVICE <"+serviceURL+"> { "+servicePattern+" } }";
+    }
+
+    @Test public void service_bulk_1() {
+        testSameResults(query("?y :name ?n"), new ChainingServiceExecutorBulkConcurrent(7, 2, false));
+    }
+
+    @Test public void service_bulk_2() {
+        // One request per block.
+        String qs = query("?y :name ?n");
+        List<Binding> results = exec(qs, new ChainingServiceExecutorBulkConcurrent(N, 1, false));
+        assertEquals(1, remote.requests.get());
+        assertFalse(results.isEmpty());
+    }
+
+    @Test public void service_bulk_optional() {
+        testSameResults(query("?y :size ?size OPTIONAL { ?y :name ?n }"), new ChainingServiceExecutorBulkConcurrent(10, 3, false));
+    }
+
+    @Test public void service_bulk_subquery() {
+        // ?z is hidden and is renamed in the query algebra.
+        testSameResults(query("SELECT ?y ?n { ?y :name ?n ; :size ?z FILTER(?z != 3) }"),
+                        new ChainingServiceExecutorBulkConcurrent(10, 3, false));
+    }
+
+    @Test public void service_bulk_scoped_vars() {
+        // Inside a sub-select, the variables are renamed for scope.
+        String qs = "PREFIX : <"+NS+"> SELECT ?x { { SELECT ?x { ?x :link ?y . SERVICE <"+serviceURL+"> { ?y :name ?n } } } }";
+        testSameResults(qs, new ChainingServiceExecutorBulkConcurrent(10, 3, false));
+        remote.reset();
+        exec(qs, new ChainingServiceExecutorBulkConcurrent(N, 1, false));
+        assertEquals(1, remote.requests.get());
+    }
+
+    @Test public void service_bulk_dedup() {
+        // The window of input bindings (batch size * concurrency) covers all the distinct values.
+        String qs = query("?y :name ?n");
+        exec(qs, new ChainingServiceExecutorBulkConcurrent(DISTINCT, 2, false));
+        assertTrue("Requests: "+remote.requests.get(), remote.requests.get() < N/DISTINCT);
+    }
+
+    @Test public void service_bulk_cache() {
+        // Two SERVICE calls with the same pattern. The results of the first are used for the second.
+        String qs = "PREFIX : <"+NS+"> SELECT * { { ?x :link ?y SERVICE <"+serviceURL+"> { ?y :name ?n } } UNION "+
+                                                "{ ?x :link ?y SERVICE <"+serviceURL+"> { ?y :name ?n } } }";
+        testSameResults(qs, new ChainingServiceExecutorBulkConcurrent(N, 1, true));
+        remote.reset();
+        exec(qs, new ChainingServiceExecutorBulkConcurrent(N, 1, false));
+        assertEquals(2, remote.requests.get());
+        remote.reset();
+        exec(qs, new ChainingServiceExecutorBulkConcurrent(N, 1, true));
+        assertEquals(1, remote.requests.get());
+    }
+
+    @Test public void service_bulk_cache_scoped_vars() {
+        // The same SERVICE pattern in a sub-select, where ?n is renamed for scope, and at the top level.
+        String qs = "PREFIX : <"+NS+"> SELECT * { { SELECT ?x ?y { ?x :link ?y SERVICE <"+serviceURL+"> { ?y :name ?n } } } UNION "+
+                                                "{ ?x :link ?y SERVICE <"+serviceURL+"> { ?y :name ?n } } }";
+        testSameResults(qs, new ChainingServiceExecutorBulkConcurrent(N, 1, true));
+        remote.reset();
+        exec(qs, new ChainingServiceExecutorBulkConcurrent(N, 1, true));
+        assertEquals(1, remote.requests.get());
+    }
+
+    @Test public void service_bulk_concurrency() {
+        String qs = query("?y :name ?n");
+        exec(qs, new ChainingServiceExecutorBulkConcurrent(2, 3, false));
+        assertTrue(remote.requests.get() >= DISTINCT/2);
+        assertTrue("Concurrent: "+remote.maxActive.get(), remote.maxActive.get() <= 3);
+    }
+
+    @Test public void service_bulk_not_batched_1() {
+        // LIMIT applies to each binding.
+        testNotBatched(query("SELECT * { ?y :name ?n } LIMIT 1"));
+    }
+
+    @Test public void service_bulk_not_batched_2() {
+        // ?y is not always bound by the SERVICE pattern.
+        testNotBatched(query("{ ?y :name ?n } UNION { ?z :size ?size }"));
+    }
+
+    @Test public void service_bulk_not_batched_3() {
+        // ?n is projected by the sub-select but is only bound by the OPTIONAL.
+        // The query optimizer does not pass ?n to such a pattern, so the algebra is given.
+        String sse = "(sequence (extend ((?n 'name2')) (bgp (?x <"+NS+"link> ?y))) "+
+                     "  (service <"+serviceURL+"> (project (?y ?n) "+
+                     "    (leftjoin (bgp (?y <"+NS+"size> ?/size)) (bgp (?y <"+NS+"name> ?n))))))";
+        List<Binding> expected = execOp(sse, null);
+        int expectedRequests = remote.requests.get();
+        remote.reset();
+        List<Binding> actual = execOp(sse, new ChainingServiceExecutorBulkConcurrent(10, 2, false));
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+        assertEquals(expectedRequests, remote.requests.get());
+    }
+
+    @Test public void service_bulk_not_batched_4() {
+        // ?n is not bound in every row of the VALUES table.
+        testNotBatched("PREFIX : <"+NS+"> SELECT * { ?x :link ?y BIND(\"name2\" AS ?n) "+
+                       "SERVICE <"+serviceURL+"> { ?y :size ?size VALUES ?n { \"name2\" UNDEF } } }");
+    }
+
+    @Test public void service_bulk_silent() {
+        String qs = "PREFIX : <"+NS+"> SELECT * { ?x :link ?y SERVICE SILENT <"+serviceURL+"-nosuch> { ?y :name ?n } }";
+        LogCtl.withLevel(LoggerFactory.getLogger(ChainingServiceExecutorBulkConcurrent.class.getPackageName()), "ERROR", () -> {
+            List<Binding> results = exec(qs, new ChainingServiceExecutorBulkConcurrent(10, 2, false));
+            assertEquals(N, results.size());
+            results.forEach(b -> assertFalse(b.contains(Var.alloc("n"))));
+        });
+    }
+
+    @Test public void service_bulk_error() {
+        String qs = "PREFIX : <"+NS+"> SELECT * { ?x :link ?y SERVICE <"+serviceURL+"-nosuch> { ?y :name ?n } }";
+        try {
+            exec(qs, new ChainingServiceExecutorBulkConcurrent(10, 2, false));
+            fail("Expected QueryExceptionHTTP");
+        } catch (QueryExceptionHTTP ex) {
+            assertEquals(404, ex.getStatusCode());
+        }
+    }
+
+    /** Same results and the same requests as without the bulk executor. */
+    private static void testNotBatched(String queryString) {
+        testSameResults(queryString, new ChainingServiceExecutorBulkConcurrent(10, 2, false));
+        remote.reset();
+        exec(queryString, null);
+        int expected = remote.requests.get();
+        remote.reset();
+        exec(queryString, new ChainingServiceExecutorBulkConcurrent(10, 2, false));
+        assertEquals(expected, remote.requests.get());
+    }
+
+    /** Same results, in the same order, as one request per binding. */
+    private static void testSameResults(String queryString, ChainingServiceExecutorBulkConcurrent executor) {
+        List<Binding> expected = exec(queryString, null);
+        List<Binding> actual = exec(queryString, executor);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+    }
+
+    private static List<Binding> exec(String queryString, ChainingServiceExecutorBulkConcurrent executor) {
+        List<Binding> results = new ArrayList<>();
+        QueryExec.dataset(local)
+            .query(queryString)
+            .set(Service.httpServiceAllowed, true)
+            .set(ARQConstants.registryServiceExecutors, registry(executor))
+            .build()
+            .select()
+            .forEachRemaining(results::add);
+        return results;
+    }
+
+    /** Execute an algebra expression, as written. */
+    private static List<Binding> execOp(String sse, ChainingServiceExecutorBulkConcurrent executor) {
+        Op op = SSE.parseOp(sse);
+        Context context = ARQ.getContext().copy();
+        context.set(ARQ.optimization, false);
+        context.set(Service.httpServiceAllowed, true);
+        context.set(ARQConstants.registryServiceExecutors, registry(executor));
+        QueryIterator qIter = QueryEngineRegistry.findFactory(op, local, context)
+                                                 .create(op, local, BindingRoot.create(), context)
+                                                 .iterator();
+        try {
+            return Iter.toList(qIter);
+        } finally {
+            qIter.close();
+        }
+    }
+
+    private static ServiceExecutorRegistry registry(ChainingServiceExecutorBulkConcurrent executor) {
+        ServiceExecutorRegistry registry = ServiceExecutorRegistry.get().copy();
+        if ( executor != null )
+            registry.addBulkLink(executor);
+        return registry;
+    }
+}
@@ -19,6 +19,9 @@
 package org.apache.jena.shacl;
 
 import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphListenerBase;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.sparql.graph.GraphFactory;
 
 /** Operations to work on graph with SHACL.
  *
@@ -46,6 +49,14 @@ import org.apache.jena.graph.Graph;
  *        ShLib.printReport(report);
  *     }
  * </pre>
+ * Example: update, checking only the focus nodes affected by the changes:
+ * <pre>
+ *     Shapes shapes = ...
+ *     GraphValidation.updateIncremental(shapes, graph, ()-&gt;{
+ *         ... application code ...
+ *     });
+ * </pre>
+ *
  * Example: update regardless and then report:
  * <pre>
  *     Shapes shapes = ...
@@ -91,4 +102,63 @@ public class GraphValidation {
                 throw new ShaclValidationException(report);
             });
     }
+
+    /**
+     * Update the graph, validating only the focus nodes that may be affected by the
+     * changes made by the update (see {@link ShaclValidator#validateDelta}). The data
+     * is assumed to conform to the shapes before the update.
+     * <p>
+     * This operation aborts and throws a {@link ShaclValidationException} if there
+     * are any validation results from shapes (of any severity).
+     * <p>
+     * The changes are seen through the {@link Graph#getEventManager() event manager}
+     * of the graph, so the update must change the graph through the graph object.
+     * If the update makes changes that are not individual triples (for example,
+     * {@link Graph#clear()}), the whole graph is validated.
+     */
+    public static ValidationReport updateIncremental(Shapes shapes, Graph data, Runnable update) throws ShaclValidationException {
+        return
+            data.getTransactionHandler().calculateAlways(()->{
+                DeltaRecorder delta = new DeltaRecorder();
+                data.getEventManager().register(delta);
+                try {
+                    update.run();
+                } finally {
+                    data.getEventManager().unregister(delta);
+                }
+                ShaclValidator validator = ShaclValidator.get();
+                ValidationReport report = delta.complete
+                    ? validator.validateDelta(shapes, data, delta.added, delta.removed)
+                    : validator.validate(shapes, data);
+                if ( report.conforms() )
+                    return report;
+                // Causes abort.
+                throw new ShaclValidationException(report);
+            });
+    }
+
+    /** Record the triples added to and removed from a graph. */
+    private static class DeltaRecorder extends GraphListenerBase {
+        final Graph added = GraphFactory.createPlainGraph();
+        final Graph removed = GraphFactory.createPlainGraph();
+        // False if there were changes not reported as individual triples.
+        boolean complete = true;
+
+        @Override
+        protected void addEvent(Triple t) {
+            removed.delete(t);
+            added.add(t);
+        }
+
+        @Override
+        protected void deleteEvent(Triple t) {
+            added.delete(t);
+            removed.add(t);
+        }
+
+        @Override
+        public void notifyEvent(Graph source, Object value) {
+            complete = false;
+        }
+    }
 }
@@ -65,6 +65,26 @@ public interface ShaclValidator {
     /** Produce a full validation report for this node in the data. */
     public ValidationReport validate(Shapes shapes, Graph data, Node node);
 
+    /**
+     * Produce a full validation report, splitting the work across several threads.
+     * The report is the same as for {@link #validate(Shapes, Graph)}.
+     * The data graph must support concurrent reads.
+     */
+    public default ValidationReport validateParallel(Shapes shapes, Graph data) {
+        return validate(shapes, data);
+    }
+
+    /**
+     * Produce a validation report after a change to the data, covering the focus
+     * nodes that may be affected by the change. {@code data} is the graph after the
+     * change; {@code added} and {@code removed} are the triples added and removed.
+     * If the data conformed before the change, the data conforms after the change if
+     * and only if the report conforms.
+     */
+    public default ValidationReport validateDelta(Shapes shapes, Graph data, Graph added, Graph removed) {
+        return validate(shapes, data);
+    }
+
     /** Produce a full validation report. */
     public default ValidationReport validate(Graph shapesGraph, Graph data) {
         return validate(parse(shapesGraph), data);
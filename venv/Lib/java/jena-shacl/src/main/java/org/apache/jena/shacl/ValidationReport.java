@@ -206,6 +206,12 @@ public class ValidationReport {
             entries.add(e);
         }
 
+        /** Add all the entries of another builder, after the entries already added. */
+        public void addReportEntries(Builder other) {
+            entries.addAll(other.entries);
+            paths.addAll(other.paths);
+        }
+
         public ValidationReport build() {
             return new ValidationReport(paths, entries, prefixes);
         }
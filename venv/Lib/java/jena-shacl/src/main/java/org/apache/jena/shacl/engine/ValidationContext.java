@@ -70,14 +70,27 @@ public class ValidationContext {
         return new ValidationContext(vCxt);
     }
 
+    /**
+     * A validation context for one part of a validation that is split into parts run
+     * in parallel. It has its own report and output indentation; the report entries
+     * are added back with {@link #reportEntries(ValidationContext)}.
+     */
+    public static ValidationContext createParallel(ValidationContext vCxt) {
+        return new ValidationContext(vCxt, vCxt.out.clone());
+    }
+
     private ValidationContext(ValidationContext vCxt) {
+        this(vCxt, vCxt.out);
+    }
+
+    private ValidationContext(ValidationContext vCxt, IndentedWriter out) {
         this.shapes = vCxt.shapes;
         this.dataGraph = vCxt.dataGraph;
         this.verbose = vCxt.verbose;
         this.strict = vCxt.strict;
         this.validationListener = vCxt.validationListener;
         this.errorHandler = vCxt.errorHandler;
-        this.out = vCxt.out;
+        this.out = out;
     }
 
     private ValidationContext(Shapes shapes, Graph data, ErrorHandler errorHandler, ValidationListener validationListener) {
@@ -105,6 +118,14 @@ public class ValidationContext {
         validationReportBuilder.addReportEntry(message, shape, focusNode, path, valueNode, constraint);
     }
 
+    /** Add the report entries of another validation context to this one. */
+    public void reportEntries(ValidationContext other) {
+        if ( ! other.seenValidationReportEntry )
+            return;
+        seenValidationReportEntry = true;
+        validationReportBuilder.addReportEntries(other.validationReportBuilder);
+    }
+
     public ValidationReport generateReport() {
         return validationReportBuilder.build();
     }
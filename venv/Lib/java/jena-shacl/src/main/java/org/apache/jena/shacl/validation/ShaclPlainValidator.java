@@ -84,6 +84,18 @@ public class ShaclPlainValidator implements ShaclValidator {
         return ValidationProc.plainValidationNode(shapes, data, node);
     }
 
+    /** Produce a full validation report, splitting the work across the common fork-join pool. */
+    @Override
+    public ValidationReport validateParallel(Shapes shapes, Graph data) {
+        return ValidationProc.plainValidationParallel(shapes, data);
+    }
+
+    /** Produce a validation report for the focus nodes affected by a change. */
+    @Override
+    public ValidationReport validateDelta(Shapes shapes, Graph data, Graph added, Graph removed) {
+        return ValidationProc.plainValidationDelta(shapes, data, added, removed);
+    }
+
     /** Produce a full validation report. */
     @Override
     public ValidationReport validate(Graph shapesGraph, Graph data) {
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.shacl.validation;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.shacl.engine.Target;
+import org.apache.jena.shacl.engine.TargetType;
+import org.apache.jena.shacl.engine.constraint.*;
+import org.apache.jena.shacl.parser.Constraint;
+import org.apache.jena.shacl.parser.PropertyShape;
+import org.apache.jena.shacl.parser.Shape;
+import org.apache.jena.sparql.path.*;
+
+/**
+ * The part of the data graph that validation of a focus node against a shape can
+ * look at: the triples of nodes up to {@link #reach()} steps from the focus node,
+ * where the steps follow links with one of the {@link #predicates()}.
+ * <p>
+ * A change to the data graph can only alter the validation results of focus nodes
+ * within this distance of a node of a changed triple. Shapes with SPARQL-based
+ * constraints or targets, paths of unbounded length, or recursion through other
+ * shapes are "unbounded".
+ */
+/*package*/ class ShapeFootprint {
+    private static final int UNBOUNDED = -1;
+
+    private final int reach;
+    private final Set<Node> predicates;
+
+    /** The footprint of a shape as a target shape. */
+    static ShapeFootprint of(Shape shape) {
+        for ( Target target : shape.getTargets() ) {
+            if ( target.getTargetType() == TargetType.targetExtension )
+                return new ShapeFootprint(UNBOUNDED, null);
+        }
+        Set<Node> predicates = new HashSet<>();
+        int reach = reach(shape, predicates, new HashSet<>());
+        // An empty set because of a negated property set means "any predicate".
+        return new ShapeFootprint(reach, predicates.contains(null) ? null : predicates);
+    }
+
+    private ShapeFootprint(int reach, Set<Node> predicates) {
+        this.reach = reach;
+        this.predicates = predicates;
+    }
+
+    boolean isUnbounded()   { return reach == UNBOUNDED; }
+
+    /** Maximum number of steps from a focus node. */
+    int reach()             { return reach; }
+
+    /** The predicates of the steps; null for "any". */
+    Set<Node> predicates()  { return predicates; }
+
+    private static int reach(Shape shape, Set<Node> predicates, Set<Shape> visiting) {
+        if ( ! visiting.add(shape) )
+            // Recursive shapes.
+            return UNBOUNDED;
+        try {
+            int base = 0;
+            if ( shape instanceof PropertyShape propertyShape ) {
+                base = pathLength(propertyShape.getPath(), predicates);
+                if ( base == UNBOUNDED )
+                    return UNBOUNDED;
+            }
+            int max = base;
+            for ( Constraint c : shape.getConstraints() ) {
+                int x = reach(c, predicates, visiting);
+                if ( x == UNBOUNDED )
+                    return UNBOUNDED;
+                max = Math.max(max, base+x);
+            }
+            for ( PropertyShape propertyShape : shape.getPropertyShapes() ) {
+                int x = reach(propertyShape, predicates, visiting);
+                if ( x == UNBOUNDED )
+                    return UNBOUNDED;
+                max = Math.max(max, base+x);
+            }
+            return max;
+        } finally {
+            visiting.remove(shape);
+        }
+    }
+
+    /** Additional reach of a constraint, from the nodes it is applied to. */
+    private static int reach(Constraint c, Set<Node> predicates, Set<Shape> visiting) {
+        // Constraints that only look at the node and its own triples.
+        if ( c instanceof ConstraintTerm || c instanceof ConstraintDataTerm || c instanceof ConstraintEntity
+             || c instanceof ConstraintPairwise || c instanceof ClosedConstraint || c instanceof UniqueLangConstraint )
+            return 0;
+        // Constraints that apply other shapes to the node.
+        if ( c instanceof ConstraintOp1 op1 )
+            return reach(op1.getOther(), predicates, visiting);
+        if ( c instanceof ConstraintOpN opN ) {
+            int max = 0;
+            for ( Shape other : opN.getOthers() ) {
+                int x = reach(other, predicates, visiting);
+                if ( x == UNBOUNDED )
+                    return UNBOUNDED;
+                max = Math.max(max, x);
+            }
+            return max;
+        }
+        if ( c instanceof QualifiedValueShape qvs ) {
+            // Disjoint qualified value shapes also use the sibling shapes.
+            if ( qvs.qDisjoint() )
+                return UNBOUNDED;
+            return reach(qvs.getSub(), predicates, visiting);
+        }
+        // SPARQL-based constraints, and anything else.
+        return UNBOUNDED;
+    }
+
+    /** Length of a SHACL path, adding the predicates used to the set. */
+    private static int pathLength(Path path, Set<Node> predicates) {
+        if ( path instanceof P_Path0 link ) {
+            predicates.add(link.getNode());
+            return 1;
+        }
+        if ( path instanceof P_Inverse inv )
+            return pathLength(inv.getSubPath(), predicates);
+        if ( path instanceof P_ZeroOrOne zeroOrOne )
+            return pathLength(zeroOrOne.getSubPath(), predicates);
+        if ( path instanceof P_Seq seq ) {
+            int x1 = pathLength(seq.getLeft(), predicates);
+            int x2 = pathLength(seq.getRight(), predicates);
+            return ( x1 == UNBOUNDED || x2 == UNBOUNDED ) ? UNBOUNDED : x1+x2;
+        }
+        if ( path instanceof P_Alt alt ) {
+            int x1 = pathLength(alt.getLeft(), predicates);
+            int x2 = pathLength(alt.getRight(), predicates);
+            return ( x1 == UNBOUNDED || x2 == UNBOUNDED ) ? UNBOUNDED : Math.max(x1, x2);
+        }
+        if ( path instanceof P_NegPropSet ) {
+            predicates.add(null);
+            return 1;
+        }
+        // sh:zeroOrMorePath, sh:oneOrMorePath
+        return UNBOUNDED;
+    }
+}
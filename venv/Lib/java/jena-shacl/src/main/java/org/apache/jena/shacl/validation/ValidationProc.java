@@ -18,16 +18,20 @@
 
 package org.apache.jena.shacl.validation;
 
-import java.util.Collection;
-import java.util.Collections;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.shacl.Shapes;
 import org.apache.jena.shacl.ValidationReport;
 import org.apache.jena.shacl.engine.ValidationContext;
 import org.apache.jena.shacl.parser.Shape;
 import org.apache.jena.shacl.validation.event.*;
+import org.apache.jena.system.G;
+import org.apache.jena.vocabulary.RDFS;
 
 public class ValidationProc {
     /* 3.4 Validation
@@ -127,6 +131,202 @@ public class ValidationProc {
         plainValidationInternal(vCxt, data, node, shape);
     }
 
+    // ---- Parallel.
+
+    /**
+     * Validation, with the work for each focus node of each target shape split
+     * across the {@link ForkJoinPool#commonPool() common fork-join pool}.
+     * @see #plainValidationParallel(Shapes, Graph, ForkJoinPool)
+     */
+    public static ValidationReport plainValidationParallel(Shapes shapes, Graph data) {
+        return plainValidationParallel(shapes, data, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Validation, with the work for each focus node of each target shape split
+     * across a fork-join pool.
+     * <p>
+     * The report has the same entries, in the same order, as {@link #plainValidation}.
+     * The data graph must support being read from several threads at once; any
+     * {@link ValidationListener} is called from the pool threads.
+     * Verbose validation is not done in parallel.
+     */
+    public static ValidationReport plainValidationParallel(Shapes shapes, Graph data, ForkJoinPool pool) {
+        ValidationContext vCxt = ValidationContext.create(shapes, data);
+        if ( vCxt.isVerbose() )
+            return plainValidation(shapes, data);
+        Collection<Shape> targetShapes = shapes.getTargetShapes();
+        vCxt.notifyValidationListener(() -> new TargetShapesValidationStartedEvent(vCxt, targetShapes));
+        try {
+            List<Shape> unitShapes = new ArrayList<>();
+            List<Node> unitNodes = new ArrayList<>();
+            for ( Shape shape : targetShapes ) {
+                vCxt.notifyValidationListener(() -> new ShapeValidationStartedEvent(vCxt, shape));
+                Collection<Node> focusNodes = VLib.focusNodes(data, shape);
+                vCxt.notifyValidationListener(() -> new FocusNodesDeterminedEvent(vCxt, shape, focusNodes));
+                for ( Node focusNode : focusNodes ) {
+                    unitShapes.add(shape);
+                    unitNodes.add(focusNode);
+                }
+            }
+            int size = unitNodes.size();
+            ValidationContext[] parts = new ValidationContext[size];
+            int threshold = Math.max(1, size / (8*pool.getParallelism()));
+            if ( size > 0 )
+                pool.invoke(new ValidateRange(vCxt, data, unitShapes, unitNodes, parts, 0, size, threshold));
+            // Merge in order.
+            for ( ValidationContext part : parts ) {
+                if ( part != null )
+                    vCxt.reportEntries(part);
+            }
+            targetShapes.forEach(shape ->
+                vCxt.notifyValidationListener(() -> new ShapeValidationFinishedEvent(vCxt, shape)));
+            return vCxt.generateReport();
+        } finally {
+            vCxt.notifyValidationListener(() -> new TargetShapesValidationFinishedEvent(vCxt, targetShapes));
+        }
+    }
+
+    /** Validate focus nodes {@code start} to {@code finish-1}, splitting the work until below the threshold. */
+    private static class ValidateRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final ValidationContext vCxt;
+        private final Graph data;
+        private final List<Shape> shapes;
+        private final List<Node> focusNodes;
+        private final ValidationContext[] parts;
+        private final int start;
+        private final int finish;
+        private final int threshold;
+
+        ValidateRange(ValidationContext vCxt, Graph data, List<Shape> shapes, List<Node> focusNodes,
+                      ValidationContext[] parts, int start, int finish, int threshold) {
+            this.vCxt = vCxt;
+            this.data = data;
+            this.shapes = shapes;
+            this.focusNodes = focusNodes;
+            this.parts = parts;
+            this.start = start;
+            this.finish = finish;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if ( finish - start > threshold ) {
+                int mid = (start + finish) >>> 1;
+                invokeAll(new ValidateRange(vCxt, data, shapes, focusNodes, parts, start, mid, threshold),
+                          new ValidateRange(vCxt, data, shapes, focusNodes, parts, mid, finish, threshold));
+                return;
+            }
+            ValidationContext vCxtPart = ValidationContext.createParallel(vCxt);
+            for ( int i = start ; i < finish ; i++ )
+                VLib.validateShape(vCxtPart, data, shapes.get(i), focusNodes.get(i));
+            // One slot per range, so no two threads write the same element.
+            parts[start] = vCxtPart;
+        }
+    }
+
+    // ---- Incremental.
+
+    /**
+     * Validation of the focus nodes that may be affected by a change to the data.
+     * <p>
+     * The data graph is the graph after the change; {@code added} and
+     * {@code removed} are the triples added and removed by the change. Only focus
+     * nodes whose validation results may be different because of the change are
+     * validated. If the data conformed to the shapes before the change, the data
+     * conforms after the change if and only if the returned report conforms.
+     * <p>
+     * Shapes for which the affected focus nodes cannot be determined (for example
+     * those with SPARQL-based constraints or targets, or paths of unbounded length)
+     * are validated for all their focus nodes. A change to an {@code rdfs:subClassOf}
+     * triple causes validation of the whole data graph.
+     */
+    public static ValidationReport plainValidationDelta(Shapes shapes, Graph data, Graph added, Graph removed) {
+        if ( added.contains(null, RDFS.Nodes.subClassOf, null) || removed.contains(null, RDFS.Nodes.subClassOf, null) )
+            return plainValidation(shapes, data);
+        ValidationContext vCxt = ValidationContext.create(shapes, data);
+        int x = vCxt.out().getAbsoluteIndent();
+        try {
+            return plainValidationDelta(vCxt, shapes, data, added, removed);
+        } finally { vCxt.out().setAbsoluteIndent(x); }
+    }
+
+    private static ValidationReport plainValidationDelta(ValidationContext vCxt, Shapes shapes, Graph data, Graph added, Graph removed) {
+        // Nodes of the changed triples.
+        Set<Node> changed = new LinkedHashSet<>();
+        G.find(added, null, null, null).forEach(t -> addNodes(changed, t));
+        G.find(removed, null, null, null).forEach(t -> addNodes(changed, t));
+
+        Collection<Shape> targetShapes = shapes.getTargetShapes();
+        vCxt.notifyValidationListener(() -> new TargetShapesValidationStartedEvent(vCxt, targetShapes));
+        try {
+            Map<Integer, Set<Node>> nearByReach = new HashMap<>();
+            for ( Shape shape : targetShapes ) {
+                ShapeFootprint footprint = ShapeFootprint.of(shape);
+                if ( footprint.isUnbounded() ) {
+                    plainValidationInternal(vCxt, data, null, shape);
+                    continue;
+                }
+                Set<Node> candidates = ( footprint.predicates() == null )
+                    ? nearByReach.computeIfAbsent(footprint.reach(), r -> near(data, changed, r, null))
+                    : near(data, changed, footprint.reach(), footprint.predicates());
+                List<Node> focusNodes = new ArrayList<>();
+                for ( Node n : candidates ) {
+                    if ( VLib.isFocusNode(shape, n, data) )
+                        focusNodes.add(n);
+                }
+                vCxt.notifyValidationListener(() -> new ShapeValidationStartedEvent(vCxt, shape));
+                plainValidationInternal(vCxt, data, shape, focusNodes);
+            }
+            return vCxt.generateReport();
+        } finally {
+            vCxt.notifyValidationListener(() -> new TargetShapesValidationFinishedEvent(vCxt, targetShapes));
+        }
+    }
+
+    private static void addNodes(Set<Node> acc, Triple triple) {
+        acc.add(triple.getSubject());
+        acc.add(triple.getObject());
+    }
+
+    /**
+     * The nodes within {@code reach} steps of the start nodes, following links in
+     * either direction, only using links with the given predicates (null for any).
+     */
+    private static Set<Node> near(Graph data, Set<Node> start, int reach, Set<Node> predicates) {
+        Set<Node> acc = new LinkedHashSet<>(start);
+        Collection<Node> frontier = start;
+        for ( int i = 0 ; i < reach && ! frontier.isEmpty() ; i++ ) {
+            List<Node> next = new ArrayList<>();
+            for ( Node n : frontier ) {
+                if ( predicates == null ) {
+                    step(data, n, null, acc, next);
+                    continue;
+                }
+                for ( Node p : predicates )
+                    step(data, n, p, acc, next);
+            }
+            frontier = next;
+        }
+        return acc;
+    }
+
+    private static void step(Graph data, Node node, Node predicate, Set<Node> acc, List<Node> next) {
+        G.find(data, null, predicate, node).forEach(t -> {
+            if ( acc.add(t.getSubject()) )
+                next.add(t.getSubject());
+        });
+        // A literal is never a subject.
+        if ( node.isLiteral() )
+            return;
+        G.find(data, node, predicate, null).forEach(t -> {
+            if ( acc.add(t.getObject()) )
+                next.add(t.getObject());
+        });
+    }
+
     // --- Top of process
 
     /**
@@ -144,6 +344,11 @@ public class ValidationProc {
         } else {
             focusNodes = VLib.focusNodes(data, shape);
         }
+        plainValidationInternal(vCxt, data, shape, focusNodes);
+    }
+
+    /** Validation process for given focus nodes of the shape. */
+    private static void plainValidationInternal(ValidationContext vCxt, Graph data, Shape shape, Collection<Node> focusNodes) {
         vCxt.notifyValidationListener(() -> new FocusNodesDeterminedEvent(vCxt, shape, focusNodes));
 
         if ( vCxt.isVerbose() ) {
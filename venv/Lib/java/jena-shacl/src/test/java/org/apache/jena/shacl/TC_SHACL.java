@@ -20,6 +20,8 @@ package org.apache.jena.shacl;
 
 import org.apache.jena.shacl.compact.TS_Compact;
 import org.apache.jena.shacl.tests.TestImports;
+import org.apache.jena.shacl.tests.TestValidationDelta;
+import org.apache.jena.shacl.tests.TestValidationParallel;
 import org.apache.jena.shacl.tests.TestValidationReport;
 import org.apache.jena.shacl.tests.ValidationListenerTests;
 import org.apache.jena.shacl.tests.jena_shacl.JenaShaclTestsByCode;
@@ -37,6 +39,8 @@ import org.junit.runners.Suite;
     , TestImports.class
     , ValidationListenerTests.class
     , JenaShaclTestsByCode.class
+    , TestValidationParallel.class
+    , TestValidationDelta.class
 } )
 
 public class TC_SHACL { }
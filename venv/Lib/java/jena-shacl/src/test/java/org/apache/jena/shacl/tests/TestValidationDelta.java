@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.shacl.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.shacl.GraphValidation;
+import org.apache.jena.shacl.ShaclValidationException;
+import org.apache.jena.shacl.Shapes;
+import org.apache.jena.shacl.ValidationReport;
+import org.apache.jena.shacl.validation.ReportEntry;
+import org.apache.jena.shacl.validation.ValidationProc;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.sparql.sse.SSE;
+import org.junit.Test;
+
+/** Validation of the focus nodes affected by a change to the data. */
+public class TestValidationDelta {
+
+    static final String PREFIXES = """
+        PREFIX :     <http://example/>
+        PREFIX sh:   <http://www.w3.org/ns/shacl#>
+        PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>
+        """;
+
+    static final String SHAPES = PREFIXES + """
+        :PersonShape a sh:NodeShape ;
+            sh:targetClass :Person ;
+            sh:property [ sh:path :name ; sh:minCount 1 ; sh:maxCount 1 ] ;
+            sh:property [ sh:path :address ; sh:node :AddressShape ] .
+
+        :AddressShape a sh:NodeShape ;
+            sh:property [ sh:path :city ; sh:minCount 1 ] .
+
+        :KnowsShape a sh:NodeShape ;
+            sh:targetSubjectsOf :knows ;
+            sh:property [ sh:path [ sh:oneOrMorePath :knows ] ; sh:nodeKind sh:IRI ] .
+        """;
+
+    // :b is already invalid: it has no name.
+    static final String DATA = PREFIXES + """
+        :a a :Person ; :name "A" ; :address :addrA .
+        :addrA :city "London" .
+        :b a :Person .
+        """;
+
+    private static Shapes shapes() {
+        return Shapes.parse(parse(SHAPES));
+    }
+
+    private static Graph parse(String string) {
+        return RDFParser.fromString(string, Lang.TTL).toGraph();
+    }
+
+    @Test public void delta_none() {
+        Graph data = parse(DATA);
+        ValidationReport report = validateDelta(data, "", "");
+        assertTrue(report.conforms());
+    }
+
+    @Test public void delta_add_1() {
+        // Unrelated triple.
+        Graph data = parse(DATA);
+        ValidationReport report = validateDelta(data, "(:x :p :y)", "");
+        assertTrue(report.conforms());
+    }
+
+    @Test public void delta_add_2() {
+        Graph data = parse(DATA);
+        ValidationReport report = validateDelta(data, "(:a :name 'A2')", "");
+        assertEquals(Set.of(node(":a")), focusNodes(report));
+    }
+
+    @Test public void delta_add_3() {
+        // New focus node.
+        Graph data = parse(DATA);
+        ValidationReport report = validateDelta(data, "(:c rdf:type :Person)", "");
+        assertEquals(Set.of(node(":c")), focusNodes(report));
+    }
+
+    @Test public void delta_add_4() {
+        // Fix :b
+        Graph data = parse(DATA);
+        ValidationReport report = validateDelta(data, "(:b :name 'B')", "");
+        assertTrue(report.conforms());
+    }
+
+    @Test public void delta_remove_1() {
+        Graph data = parse(DATA);
+        ValidationReport report = validateDelta(data, "", "(:a :name 'A')");
+        assertEquals(Set.of(node(":a")), focusNodes(report));
+    }
+
+    @Test public void delta_remove_2() {
+        // Two steps from the focus node, through sh:node.
+        Graph data = parse(DATA);
+        ValidationReport report = validateDelta(data, "", "(:addrA :city 'London')");
+        assertEquals(Set.of(node(":a")), focusNodes(report));
+    }
+
+    @Test public void delta_remove_3() {
+        Graph data = parse(DATA);
+        ValidationReport report = validateDelta(data, "", "(:a rdf:type :Person) (:a :name 'A')");
+        assertTrue(report.conforms());
+    }
+
+    @Test public void delta_unbounded() {
+        // sh:oneOrMorePath : all the focus nodes of the shape are validated.
+        Graph data = parse(DATA);
+        data.add(SSE.parseTriple("(:x :knows :y)"));
+        data.add(SSE.parseTriple("(:y :knows _:b)"));
+        ValidationReport report = validateDelta(data, "(:z :knows :x)", "");
+        assertEquals(Set.of(node(":x"), node(":y"), node(":z")), focusNodes(report));
+    }
+
+    @Test public void delta_subClassOf() {
+        // Changes to the class hierarchy cause validation of everything.
+        Graph data = parse(DATA);
+        ValidationReport report = validateDelta(data, "(:Student rdfs:subClassOf :Person)", "");
+        assertEquals(Set.of(node(":b")), focusNodes(report));
+    }
+
+    @Test public void delta_same_as_full() {
+        // If the data was valid before, the delta report conforms iff the full report conforms.
+        String[][] changes = {
+            { "(:a :name 'A2')", "" },
+            { "", "(:a :address :addrA)" },
+            { "(:a :address :addrB)", "" },
+            { "(:addrB :city 'Paris') (:a :address :addrB)", "" },
+            { "(:d rdf:type :Person) (:d :name 'D')", "" },
+            { "(:d :knows :a)", "" },
+        };
+        for ( String[] change : changes ) {
+            Graph data = parse(DATA);
+            data.delete(SSE.parseTriple("(:b rdf:type :Person)"));
+            ValidationReport report1 = validateDelta(data, change[0], change[1]);
+            ValidationReport report2 = ValidationProc.plainValidation(shapes(), data);
+            assertEquals(change[0]+" "+change[1], report2.conforms(), report1.conforms());
+            assertEquals(focusNodes(report2), focusNodes(report1));
+        }
+    }
+
+    @Test public void delta_literal_path() {
+        // A path through a literal, back to the subjects: the same key for two persons.
+        String shapesStr = PREFIXES + """
+            :PersonShape a sh:NodeShape ;
+                sh:targetClass :Person ;
+                sh:property [ sh:path ( :id [ sh:inversePath :id ] ) ; sh:maxCount 1 ] .
+            """;
+        Shapes shapes = Shapes.parse(parse(shapesStr));
+        Graph data = parse(PREFIXES + ":f a :Person ; :id 'k1' .");
+        ValidationReport report1 = validateDelta(shapes, data, "(:g :id 'k1')", "");
+        ValidationReport report2 = ValidationProc.plainValidation(shapes, data);
+        assertFalse(report2.conforms());
+        assertFalse(report1.conforms());
+        assertEquals(focusNodes(report2), focusNodes(report1));
+    }
+
+    @Test public void update_incremental_1() {
+        Graph data = parse(DATA);
+        data.delete(SSE.parseTriple("(:b rdf:type :Person)"));
+        ValidationReport report = GraphValidation.updateIncremental(shapes(), data, ()->{
+            data.add(SSE.parseTriple("(:c rdf:type :Person)"));
+            data.add(SSE.parseTriple("(:c :name 'C')"));
+        });
+        assertTrue(report.conforms());
+    }
+
+    @Test public void update_incremental_2() {
+        Graph data = parse(DATA);
+        try {
+            GraphValidation.updateIncremental(shapes(), data, ()->{
+                data.delete(SSE.parseTriple("(:addrA :city 'London')"));
+            });
+            fail("Expected ShaclValidationException");
+        } catch (ShaclValidationException ex) {
+            // Only :a is checked, not :b
+            assertEquals(Set.of(node(":a")), focusNodes(ex.getReport()));
+        }
+    }
+
+    @Test public void update_incremental_3() {
+        // Graph.clear : full validation.
+        Graph data = parse(DATA);
+        ValidationReport report = GraphValidation.updateAndReport(shapes(), data, ()->{});
+        assertFalse(report.conforms());
+        try {
+            GraphValidation.updateIncremental(shapes(), data, ()->{
+                data.clear();
+                data.add(SSE.parseTriple("(:c rdf:type :Person)"));
+            });
+            fail("Expected ShaclValidationException");
+        } catch (ShaclValidationException ex) {
+            assertEquals(Set.of(node(":c")), focusNodes(ex.getReport()));
+        }
+    }
+
+    /** Apply the change (SSE triples) to the data and validate. */
+    private static ValidationReport validateDelta(Graph data, String addStr, String removeStr) {
+        return validateDelta(shapes(), data, addStr, removeStr);
+    }
+
+    private static ValidationReport validateDelta(Shapes shapes, Graph data, String addStr, String removeStr) {
+        Graph added = triples(addStr);
+        Graph removed = triples(removeStr);
+        removed.find().forEach(data::delete);
+        added.find().forEach(data::add);
+        return ValidationProc.plainValidationDelta(shapes, data, added, removed);
+    }
+
+    private static Graph triples(String str) {
+        if ( str.isEmpty() )
+            return GraphFactory.createDefaultGraph();
+        return SSE.parseGraph("(prefix ((: <http://example/>)) (graph "+str+"))");
+    }
+
+    private static Node node(String str) {
+        return SSE.parseNode(str);
+    }
+
+    private static Set<Node> focusNodes(ValidationReport report) {
+        return report.getEntries().stream().map(ReportEntry::focusNode).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.shacl.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.shacl.Shapes;
+import org.apache.jena.shacl.ValidationReport;
+import org.apache.jena.shacl.validation.ReportEntry;
+import org.apache.jena.shacl.validation.ValidationProc;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+/** Parallel validation gives the same report, in the same order, as validation in one thread. */
+public class TestValidationParallel {
+
+    private static ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass public static void afterClass() {
+        pool.shutdown();
+    }
+
+    @Test public void parallel_std_node()       { testDirectory("src/test/files/std/core/node"); }
+    @Test public void parallel_std_property()   { testDirectory("src/test/files/std/core/property"); }
+    @Test public void parallel_std_path()       { testDirectory("src/test/files/std/core/path"); }
+    @Test public void parallel_std_targets()    { testDirectory("src/test/files/std/core/targets"); }
+    @Test public void parallel_std_complex()    { testDirectory("src/test/files/std/core/complex"); }
+
+    @Test public void parallel_many_1() {
+        Graph data = people(2000);
+        Shapes shapes = Shapes.parse(parse(PersonShapes));
+        ValidationReport report = testParallel("people", shapes, data);
+        assertFalse(report.conforms());
+    }
+
+    @Test public void parallel_many_2() {
+        Graph data = people(10);
+        Shapes shapes = Shapes.parse(parse(PersonShapes));
+        // Run in the common pool.
+        ValidationReport report1 = ValidationProc.plainValidation(shapes, data);
+        ValidationReport report2 = ValidationProc.plainValidationParallel(shapes, data);
+        assertSameEntries("people", report1, report2);
+    }
+
+    @Test public void parallel_empty() {
+        Shapes shapes = Shapes.parse(parse(PersonShapes));
+        ValidationReport report = testParallel("empty", shapes, GraphFactory.createDefaultGraph());
+        assertTrue(report.conforms());
+    }
+
+    static final String PersonShapes = """
+        PREFIX :    <http://example/>
+        PREFIX sh:  <http://www.w3.org/ns/shacl#>
+        PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>
+
+        :PersonShape a sh:NodeShape ;
+            sh:targetClass :Person ;
+            sh:property [ sh:path :name ; sh:minCount 1 ; sh:maxCount 1 ; sh:datatype xsd:string ] ;
+            sh:property [ sh:path :age ; sh:maxInclusive 150 ] ;
+            sh:property [ sh:path :knows ; sh:class :Person ] .
+        """;
+
+    /** Persons, some of which have no name, two names or a wrong age. */
+    private static Graph people(int n) {
+        Graph graph = GraphFactory.createDefaultGraph();
+        Node person = NodeFactory.createURI("http://example/Person");
+        Node name = NodeFactory.createURI("http://example/name");
+        Node age = NodeFactory.createURI("http://example/age");
+        Node knows = NodeFactory.createURI("http://example/knows");
+        for ( int i = 0 ; i < n ; i++ ) {
+            Node x = NodeFactory.createURI("http://example/p"+i);
+            graph.add(Triple.create(x, RDF.Nodes.type, person));
+            if ( i % 7 != 0 )
+                graph.add(Triple.create(x, name, NodeFactory.createLiteralString("Name "+i)));
+            if ( i % 11 == 0 )
+                graph.add(Triple.create(x, name, NodeFactory.createLiteralString("Other "+i)));
+            graph.add(Triple.create(x, age, NodeFactory.createLiteral(Integer.toString(i % 200), XSDDatatype.XSDinteger)));
+            // Some links to nodes that are not persons.
+            graph.add(Triple.create(x, knows, NodeFactory.createURI("http://example/p"+((i*13) % (n+n/5+1)))));
+        }
+        return graph;
+    }
+
+    private static Graph parse(String string) {
+        return RDFParser.fromString(string, Lang.TTL).toGraph();
+    }
+
+    private static void testDirectory(String dirname) {
+        File[] files = new File(dirname).listFiles((dir, name) ->
+            name.endsWith(".ttl") && !name.equals("manifest.ttl") && !name.endsWith("-data.ttl") && !name.endsWith("-shapes.ttl"));
+        assertTrue(files.length > 0);
+        for ( File f : files ) {
+            Graph graph = RDFDataMgr.loadGraph(f.getPath());
+            Shapes shapes = Shapes.parse(graph);
+            testParallel(f.getName(), shapes, graph);
+        }
+    }
+
+    private static ValidationReport testParallel(String label, Shapes shapes, Graph data) {
+        ValidationReport report1 = ValidationProc.plainValidation(shapes, data);
+        ValidationReport report2 = ValidationProc.plainValidationParallel(shapes, data, pool);
+        assertSameEntries(label, report1, report2);
+        return report2;
+    }
+
+    private static void assertSameEntries(String label, ValidationReport report1, ValidationReport report2) {
+        assertEquals(label, report1.conforms(), report2.conforms());
+        List<ReportEntry> entries1 = new ArrayList<>(report1.getEntries());
+        List<ReportEntry> entries2 = new ArrayList<>(report2.getEntries());
+        assertEquals(label, entries1.size(), entries2.size());
+        for ( int i = 0 ; i < entries1.size() ; i++ )
+            assertTrue(label+": entry "+i, entries1.get(i).same(entries2.get(i)));
+    }
+}
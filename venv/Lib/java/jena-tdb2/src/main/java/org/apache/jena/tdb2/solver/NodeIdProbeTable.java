@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.jena.atlas.iterator.Iter;
+
+/**
+ * Multi-valued hash table keyed by a primitive {@code long}, for use as the probe
+ * table in joins on {@link org.apache.jena.tdb2.store.NodeId NodeIds}.
+ * <p>
+ * Keys are held in an open addressing table; the entries for a key are chained
+ * through an {@code int[]} so there are no per-entry objects other than the
+ * entries themselves.
+ */
+final class NodeIdProbeTable<X> {
+    private static final int NONE = -1;
+    private static final int INITIAL_SLOTS = 64;
+
+    // Slots: key and the most recently added entry for that key.
+    private long[]   keys;
+    private int[]    heads;
+    private int      slotsUsed = 0;
+    private int      mask;
+
+    // Entries, in order of addition, and the chain to the previous entry with the same key.
+    private Object[] entries;
+    private int[]    chain;
+    private int      size      = 0;
+
+    NodeIdProbeTable() {
+        keys = new long[INITIAL_SLOTS];
+        heads = new int[INITIAL_SLOTS];
+        Arrays.fill(heads, NONE);
+        mask = INITIAL_SLOTS - 1;
+        entries = new Object[INITIAL_SLOTS];
+        chain = new int[INITIAL_SLOTS];
+    }
+
+    public void put(long key, X item) {
+        if ( size == entries.length ) {
+            entries = Arrays.copyOf(entries, 2 * size);
+            chain = Arrays.copyOf(chain, 2 * size);
+        }
+        int idx = slot(key);
+        if ( heads[idx] == NONE ) {
+            keys[idx] = key;
+            slotsUsed++;
+        }
+        entries[size] = item;
+        chain[size] = heads[idx];
+        heads[idx] = size;
+        size++;
+        // Keep the load factor at or below 0.5
+        if ( 2 * slotsUsed > keys.length )
+            rehash();
+    }
+
+    /** Iterator over the entries for a key. */
+    public Iterator<X> get(long key) {
+        int idx = slot(key);
+        int start = heads[idx];
+        if ( start == NONE )
+            return Iter.nullIterator();
+        return new IterChain(start);
+    }
+
+    /** Iterator over all entries. */
+    public Iterator<X> values() {
+        return new Iterator<X>() {
+            private int i = 0;
+            @Override
+            public boolean hasNext() {
+                return i < size;
+            }
+
+            @Override
+            public X next() {
+                if ( !hasNext() )
+                    throw new NoSuchElementException();
+                return entry(i++);
+            }
+        };
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(heads, NONE);
+        Arrays.fill(entries, 0, size, null);
+        slotsUsed = 0;
+        size = 0;
+    }
+
+    // Linear probe to the slot for the key: either the slot holding the key or
+    // the first free slot.
+    private int slot(long key) {
+        int idx = spread(key) & mask;
+        while ( heads[idx] != NONE && keys[idx] != key )
+            idx = (idx + 1) & mask;
+        return idx;
+    }
+
+    private static int spread(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        int n = 2 * oldKeys.length;
+        keys = new long[n];
+        heads = new int[n];
+        Arrays.fill(heads, NONE);
+        mask = n - 1;
+        for ( int i = 0 ; i < oldKeys.length ; i++ ) {
+            if ( oldHeads[i] == NONE )
+                continue;
+            int idx = slot(oldKeys[i]);
+            keys[idx] = oldKeys[i];
+            heads[idx] = oldHeads[i];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private X entry(int i) {
+        return (X)entries[i];
+    }
+
+    private class IterChain implements Iterator<X> {
+        private int current;
+
+        IterChain(int start) {
+            this.current = start;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current != NONE;
+        }
+
+        @Override
+        public X next() {
+            if ( current == NONE )
+                throw new NoSuchElementException();
+            X x = entry(current);
+            current = chain[current];
+            return x;
+        }
+    }
+}
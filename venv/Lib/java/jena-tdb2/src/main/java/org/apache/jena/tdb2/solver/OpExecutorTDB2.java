@@ -24,6 +24,7 @@ import org.apache.jena.atlas.lib.tuple.Tuple;
 import org.apache.jena.atlas.logging.Log;
 import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
+import org.apache.jena.query.ARQ;
 import org.apache.jena.sparql.ARQInternalErrorException;
 import org.apache.jena.sparql.algebra.Op;
 import org.apache.jena.sparql.algebra.op.*;
@@ -46,6 +47,8 @@ import org.apache.jena.sparql.mgt.Explain;
 import org.apache.jena.tdb2.store.DatasetGraphTDB;
 import org.apache.jena.tdb2.store.GraphTDB;
 import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.nodetable.NodeTable;
+import org.apache.jena.tdb2.sys.SystemTDB;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -66,6 +69,7 @@ public class OpExecutorTDB2 extends OpExecutor
     };
 
     private final boolean isForTDB;
+    private final boolean isNodeIdJoin;
 
     // A new compile object is created for each op compilation.
     // So the execCxt is changing as we go through the query-compile-execute process
@@ -77,6 +81,13 @@ public class OpExecutorTDB2 extends OpExecutor
         // in QueryEngineTDB).
 
         isForTDB = (execCxt.getActiveGraph() instanceof GraphTDB);
+        // Joins on NodeIds need all the bindings to come from the same node table.
+        // The NodeId probe table is always in memory so, when a spill threshold is
+        // set, the general joins, which can move the probe table to disk, are used.
+        isNodeIdJoin = isForTDB
+                && (execCxt.getDataset() instanceof DatasetGraphTDB)
+                && execCxt.getContext().isTrueOrUndef(SystemTDB.symNodeIdJoin)
+                && execCxt.getContext().getLong(ARQ.spillToDiskThreshold, -1) < 0;
     }
 
     @Override
@@ -134,6 +145,34 @@ public class OpExecutorTDB2 extends OpExecutor
         return super.execute(opFilter, input);
         }
 
+    // ---- Joins
+
+    @Override
+    protected QueryIterator execute(OpJoin opJoin, QueryIterator input)
+    {
+        if ( ! isNodeIdJoin )
+            return super.execute(opJoin, input);
+        QueryIterator left = exec(opJoin.getLeft(), input);
+        QueryIterator right = exec(opJoin.getRight(), root());
+        return QueryIterHashJoinTDB.join(left, right, nodeTable(), execCxt);
+    }
+
+    @Override
+    protected QueryIterator execute(OpLeftJoin opLeftJoin, QueryIterator input)
+    {
+        if ( ! isNodeIdJoin )
+            return super.execute(opLeftJoin, input);
+        QueryIterator left = exec(opLeftJoin.getLeft(), input);
+        QueryIterator right = exec(opLeftJoin.getRight(), root());
+        return QueryIterHashJoinTDB.leftJoin(left, right, opLeftJoin.getExprs(), nodeTable(), execCxt);
+    }
+
+    private NodeTable nodeTable()
+    {
+        DatasetGraphTDB ds = (DatasetGraphTDB)execCxt.getDataset();
+        return ds.getQuadTable().getNodeTupleTable().getNodeTable();
+    }
+
     // ---- Triple patterns
 
     @Override
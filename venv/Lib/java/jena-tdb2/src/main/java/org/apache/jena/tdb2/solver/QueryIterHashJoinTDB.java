@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.jena.atlas.iterator.Iter;
+import org.apache.jena.query.QueryCancelledException;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.ExecutionContext;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.engine.iterator.QueryIter2;
+import org.apache.jena.sparql.engine.iterator.QueryIterNullIterator;
+import org.apache.jena.sparql.engine.iterator.QueryIterPeek;
+import org.apache.jena.sparql.engine.join.JoinKey;
+import org.apache.jena.sparql.expr.ExprList;
+import org.apache.jena.tdb2.store.NodeId;
+import org.apache.jena.tdb2.store.NodeIdFactory;
+import org.apache.jena.tdb2.store.nodetable.NodeTable;
+
+/**
+ * Hash join and hash left join working on {@link NodeId NodeIds}.
+ * <p>
+ * This is the TDB2 counterpart of ARQ's {@code QueryIterHashJoin} and
+ * {@code QueryIterHashLeftJoin_Right}. Rows are converted to {@link BindingNodeId}
+ * (which is free for rows coming from TDB2 pattern matching), the probe table is
+ * keyed on the 64 bit encoding of the NodeIds of the join variables, and rows are
+ * checked for compatibility by comparing NodeIds. Joined rows are
+ * {@link BindingTDB BindingTDBs} so nodes are only retrieved from the node table
+ * when the variable is used, e.g. when the results are written.
+ * <p>
+ * As for the TDB2 basic graph pattern matcher, comparison is by NodeId so inline
+ * literals (e.g. integers) join by value.
+ * Nodes not in the database ({@link NodeId#NodeDoesNotExist}), which can come
+ * from {@code VALUES} or {@code BIND}, are compared as nodes.
+ * <p>
+ * The probe table is held in memory.
+ */
+public class QueryIterHashJoinTDB extends QueryIter2 {
+    private static final boolean JOIN_EXPLAIN = false;
+
+    protected long s_countProbe     = 0;    // Count of the probe data size
+    protected long s_countScan      = 0;    // Count of the scan data size
+    protected long s_countResults   = 0;    // Overall result size.
+
+    /** A row: the NodeId form and the original binding. */
+    private static final class Row {
+        final BindingNodeId ids;
+        final Binding binding;
+        Row(BindingNodeId ids, Binding binding) {
+            this.ids = ids;
+            this.binding = binding;
+        }
+    }
+
+    private final NodeTable             nodeTable;
+    private final boolean               isLeftJoin;
+    private final ExprList              conditions;
+    private final Var[]                 keyVars;
+
+    // Rows with all the key variables bound to NodeIds for nodes in the database.
+    private final NodeIdProbeTable<Row> hashTable   = new NodeIdProbeTable<>();
+    // Rows with a key variable unbound or bound to a node not in the database.
+    private final List<Row>             noKeyBucket = new ArrayList<>();
+
+    private QueryIterator               iterStream;
+    private Row                         rowStream   = null;
+    private Iterator<Row>               iterCurrent = null;
+    private boolean                     yielded;
+    private Binding                     slot        = null;
+    private volatile boolean            cancelled   = false;
+
+    /**
+     * Create a hash join: the left hand side is materialized into a probe table
+     * and the right hand side is streamed.
+     */
+    public static QueryIterator join(QueryIterator left, QueryIterator right, NodeTable nodeTable, ExecutionContext execCxt) {
+        // Easy cases.
+        if ( ! left.hasNext() || ! right.hasNext() ) {
+            left.close();
+            right.close();
+            return QueryIterNullIterator.create(execCxt);
+        }
+        return new QueryIterHashJoinTDB(left, right, false, null, nodeTable, execCxt);
+    }
+
+    /**
+     * Create a hash left join: the right hand side is materialized into a probe
+     * table and the left hand side is streamed.
+     */
+    public static QueryIterator leftJoin(QueryIterator left, QueryIterator right, ExprList conditions, NodeTable nodeTable, ExecutionContext execCxt) {
+        // Easy cases.
+        if ( ! left.hasNext() ) {
+            left.close();
+            right.close();
+            return QueryIterNullIterator.create(execCxt);
+        }
+        if ( ! right.hasNext() ) {
+            right.close();
+            return left;
+        }
+        return new QueryIterHashJoinTDB(left, right, true, conditions, nodeTable, execCxt);
+    }
+
+    private QueryIterHashJoinTDB(QueryIterator left, QueryIterator right, boolean isLeftJoin, ExprList conditions,
+                                 NodeTable nodeTable, ExecutionContext execCxt) {
+        super(left, right, execCxt);
+        this.nodeTable = nodeTable;
+        this.isLeftJoin = isLeftJoin;
+        this.conditions = conditions;
+
+        QueryIterPeek pLeft = QueryIterPeek.create(left, execCxt);
+        QueryIterPeek pRight = QueryIterPeek.create(right, execCxt);
+        List<Var> varsLeft = Iter.toList(pLeft.peek().vars());
+        List<Var> varsRight = Iter.toList(pRight.peek().vars());
+        JoinKey joinKey = JoinKey.create(varsLeft, varsRight);
+        this.keyVars = Iter.toList(joinKey.iterator()).toArray(new Var[0]);
+
+        QueryIterator iterProbe = isLeftJoin ? pRight : pLeft;
+        this.iterStream = isLeftJoin ? pLeft : pRight;
+        buildHashTable(iterProbe);
+    }
+
+    private void buildHashTable(QueryIterator iter) {
+        for (; iter.hasNext(); ) {
+            if ( isCancelled() ) {
+                iter.close();
+                throw new QueryCancelledException();
+            }
+            Row row = row(iter.next());
+            s_countProbe++;
+            if ( hasKey(row.ids) )
+                hashTable.put(key(row.ids), row);
+            else
+                noKeyBucket.add(row);
+        }
+        iter.close();
+    }
+
+    // The probe table is built before this iterator is returned so cancellation
+    // during the build is seen through the cancel signal of the execution.
+    private boolean isCancelled() {
+        AtomicBoolean signal = getExecContext().getCancelSignal();
+        return cancelled || ( signal != null && signal.get() );
+    }
+
+    private Row row(Binding binding) {
+        return new Row(SolverLibTDB.convert(binding, nodeTable), binding);
+    }
+
+    /** All key variables are bound, to nodes in the database. */
+    private boolean hasKey(BindingNodeId ids) {
+        for ( Var v : keyVars ) {
+            NodeId id = ids.get(v);
+            if ( id == null || NodeId.isDoesNotExist(id) )
+                return false;
+        }
+        return true;
+    }
+
+    private long key(BindingNodeId ids) {
+        if ( keyVars.length == 1 )
+            return NodeIdFactory.encode(ids.get(keyVars[0]));
+        long x = 0;
+        for ( Var v : keyVars )
+            x = 31 * x + NodeIdFactory.encode(ids.get(v));
+        return x;
+    }
+
+    /** The probe table rows that may match a stream row. */
+    private Iterator<Row> candidates(BindingNodeId ids) {
+        if ( hasKey(ids) )
+            return Iter.concat(hashTable.get(key(ids)), noKeyBucket.iterator());
+        for ( Var v : keyVars ) {
+            // A node not in the database can only match rows with the same non-database node.
+            if ( NodeId.isDoesNotExist(ids.get(v)) )
+                return noKeyBucket.iterator();
+        }
+        // A key variable is unbound - any row may match.
+        return Iter.concat(hashTable.values(), noKeyBucket.iterator());
+    }
+
+    @Override
+    protected boolean hasNextBinding() {
+        if ( isFinished() )
+            return false;
+        if ( slot == null ) {
+            slot = moveToNextBindingOrNull();
+            if ( slot == null ) {
+                close();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected Binding moveToNextBinding() {
+        Binding r = slot;
+        slot = null;
+        return r;
+    }
+
+    private Binding moveToNextBindingOrNull() {
+        for (;;) {
+            while ( iterCurrent == null ) {
+                if ( ! iterStream.hasNext() )
+                    return null;
+                rowStream = row(iterStream.next());
+                s_countScan++;
+                iterCurrent = candidates(rowStream.ids);
+                yielded = false;
+            }
+
+            if ( ! iterCurrent.hasNext() ) {
+                iterCurrent = null;
+                if ( isLeftJoin && ! yielded ) {
+                    s_countResults++;
+                    return rowStream.binding;
+                }
+                continue;
+            }
+
+            Row rowProbe = iterCurrent.next();
+            Row rowLeft = isLeftJoin ? rowStream : rowProbe;
+            Row rowRight = isLeftJoin ? rowProbe : rowStream;
+            if ( ! compatible(rowLeft, rowRight) )
+                continue;
+            Binding r = merge(rowLeft, rowRight);
+            if ( r == null )
+                continue;
+            if ( conditions != null && ! conditions.isSatisfied(r, getExecContext()) )
+                continue;
+            yielded = true;
+            s_countResults++;
+            return r;
+        }
+    }
+
+    /** Test whether two rows agree on their common variables. */
+    private static boolean compatible(Row rowLeft, Row rowRight) {
+        for ( Var v : rowRight.ids ) {
+            NodeId idLeft = rowLeft.ids.get(v);
+            if ( idLeft == null )
+                continue;
+            NodeId idRight = rowRight.ids.get(v);
+            boolean missingLeft = NodeId.isDoesNotExist(idLeft);
+            boolean missingRight = NodeId.isDoesNotExist(idRight);
+            if ( missingLeft || missingRight ) {
+                if ( missingLeft != missingRight )
+                    return false;
+                if ( ! Objects.equals(rowLeft.binding.get(v), rowRight.binding.get(v)) )
+                    return false;
+                continue;
+            }
+            if ( ! idLeft.equals(idRight) )
+                return false;
+        }
+        return true;
+    }
+
+    private Binding merge(Row rowLeft, Row rowRight) {
+        // The right hand side is evaluated from the root so it has no parent
+        // binding unless it is not a TDB2 binding (e.g. VALUES) when the
+        // original binding carries the nodes not in the database.
+        Binding parentRight = rowRight.ids.getParentBinding();
+        if ( parentRight != null && ! parentRight.isEmpty() )
+            return Algebra.merge(rowLeft.binding, rowRight.binding);
+        BindingNodeId ids = new BindingNodeId(rowLeft.ids);
+        for ( Var v : rowRight.ids ) {
+            if ( ! rowLeft.ids.containsKey(v) )
+                ids.put(v, rowRight.ids.get(v));
+        }
+        return new BindingTDB(ids, nodeTable);
+    }
+
+    @Override
+    protected void closeSubIterator() {
+        if ( JOIN_EXPLAIN ) {
+            String x = String.format("HashJoinTDB: Probe=%d Scan=%d Results=%d NoKeyBucket=%d",
+                                     s_countProbe, s_countScan, s_countResults, noKeyBucket.size());
+            System.out.println(x);
+        }
+        // In case it's a peek iterator.
+        iterStream.close();
+        hashTable.clear();
+        noKeyBucket.clear();
+    }
+
+    @Override
+    protected void requestSubCancel() {
+        cancelled = true;
+    }
+}
@@ -140,7 +140,8 @@ public class NodeIdFactory
         Bytes.setLong(v2, b, 0);
     }
 
-    private static long encode(NodeId nodeId) {
+    /** The 64 bit encoding of a {@code NodeId}, as used in indexes. */
+    public static long encode(NodeId nodeId) {
         long x = nodeId.value2;
         switch(nodeId.type()) {
             case PTR:
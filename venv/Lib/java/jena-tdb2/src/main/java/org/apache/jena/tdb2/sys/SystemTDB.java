@@ -119,6 +119,12 @@ public class SystemTDB
     /** Experimental : triple and quad filtering at scan level */
     public static final Symbol symTupleFilter       = allocSymbol("tupleFilter");
 
+    /**
+     * Joins and left joins within a TDB2 dataset work on NodeIds (default: true).
+     * Not used when {@link org.apache.jena.query.ARQ#spillToDiskThreshold} is set.
+     */
+    public static final Symbol symNodeIdJoin        = allocSymbol("nodeIdJoin");
+
     private static final String PropertyFileKey1    = tdbPropertyRoot+".settings";
     private static final String PropertyFileKey2    = tdbSymbolPrefix+":settings";
 
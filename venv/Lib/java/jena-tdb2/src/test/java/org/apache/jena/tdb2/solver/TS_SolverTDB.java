@@ -24,6 +24,7 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses( {
     TestSolverTDB.class
+    , TestJoinNodeId.class
     , TestStats.class
 })
 
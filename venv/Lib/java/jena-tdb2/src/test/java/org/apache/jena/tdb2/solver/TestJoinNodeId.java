@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.jena.tdb2.solver;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.query.ARQ;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.shared.PrefixMapping;
+import org.apache.jena.shared.impl.PrefixMappingImpl;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.OpVars;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.QueryIterator;
+import org.apache.jena.sparql.exec.RowSet;
+import org.apache.jena.sparql.exec.RowSetOps;
+import org.apache.jena.sparql.exec.RowSetRewindable;
+import org.apache.jena.sparql.resultset.ResultSetCompare;
+import org.apache.jena.sparql.sse.SSE;
+import org.apache.jena.tdb2.junit.TL;
+import org.apache.jena.tdb2.sys.SystemTDB;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/** Joins on NodeIds give the same results as the general ARQ joins. */
+public class TestJoinNodeId {
+    private static String data = String.join("\n"
+        , "PREFIX : <http://example/>"
+        , ":s1 :p :o1 ; :q 1 ; :r 'abc' ."
+        , ":s2 :p :o2 ; :q 2 ."
+        , ":s3 :p :o1 ; :q 3 ."
+        , ":o1 :label 'one' ; :q 1 ."
+        , ":o2 :label 'two' ."
+        , ":x  :p :s1 ."
+        , "GRAPH :g { :s1 :p :o2 . :o2 :label 'two' . }"
+        );
+
+    private static DatasetGraph dsgTDB = null;
+    private static DatasetGraph dsgMem = null;
+    private static PrefixMapping pmap = null;
+
+    @BeforeClass
+    static public void beforeClass() {
+        dsgTDB = TL.createTestDatasetGraphMem();
+        dsgTDB.begin(ReadWrite.WRITE);
+        RDFParser.fromString(data, Lang.TRIG).parse(dsgTDB);
+        dsgMem = DatasetGraphFactory.createTxnMem();
+        RDFParser.fromString(data, Lang.TRIG).parse(dsgMem);
+        // Execute the algebra as written.
+        dsgTDB.getContext().set(ARQ.optimization, false);
+        dsgMem.getContext().set(ARQ.optimization, false);
+        pmap = new PrefixMappingImpl();
+        pmap.setNsPrefix("", "http://example/");
+    }
+
+    @AfterClass
+    static public void afterClass() {
+        dsgTDB.abort();
+        TL.expel(dsgTDB);
+    }
+
+    @Test public void join_01() {
+        test("(join (bgp (?s :p ?o)) (bgp (?o :label ?label)))");
+    }
+
+    @Test public void join_02() {
+        // No common variables.
+        test("(join (bgp (?s :p :o1)) (bgp (?o :label ?label)))");
+    }
+
+    @Test public void join_03() {
+        // Two join variables.
+        test("(join (bgp (?s :p ?o) (?o :q ?v)) (bgp (?s :q ?v)))");
+    }
+
+    @Test public void join_04() {
+        // No matches.
+        test("(join (bgp (?s :p ?o)) (bgp (?o :r ?z)))");
+    }
+
+    @Test public void join_05() {
+        // Nodes not in the database.
+        test("(join (table (vars ?o) (row [?o :o1]) (row [?o :notPresent]) (row [?o 'notPresent'])) (bgp (?s :p ?o)))");
+    }
+
+    @Test public void join_06() {
+        test("(join (bgp (?s :p ?o)) (table (vars ?o ?z) (row [?o :o1] [?z :notPresent]) (row [?o :o2])))");
+    }
+
+    @Test public void join_07() {
+        // Unbound join variable.
+        test("(join (leftjoin (bgp (?s :p ?o)) (bgp (?s :r ?z))) (bgp (?s2 :r ?z)))");
+    }
+
+    @Test public void join_08() {
+        test("(join (bgp (?s :p ?o)) (graph :g (bgp (?o :label ?label))))");
+    }
+
+    @Test public void leftjoin_01() {
+        test("(leftjoin (bgp (?s :p ?o)) (bgp (?s :r ?z)))");
+    }
+
+    @Test public void leftjoin_02() {
+        test("(leftjoin (bgp (?s :p ?o)) (bgp (?o :label ?label)) (= ?label 'one'))");
+    }
+
+    @Test public void leftjoin_03() {
+        test("(leftjoin (table (vars ?s) (row [?s :s1]) (row [?s :notPresent])) (bgp (?s :p ?o)))");
+    }
+
+    @Test public void leftjoin_04() {
+        test("(leftjoin (bgp (?s :p ?o)) (bgp (?zzz :p ?o)))");
+    }
+
+    /** Execute on TDB2, with and without NodeId joins, and on a general dataset. */
+    private static void test(String pattern) {
+        Op op = SSE.parseOp(pattern, pmap);
+        List<Var> vars = new ArrayList<>(OpVars.visibleVars(op));
+
+        RowSetRewindable expected = exec(op, vars, dsgMem);
+        RowSetRewindable actual = exec(op, vars, dsgTDB);
+        same(expected, actual);
+
+        dsgTDB.getContext().set(SystemTDB.symNodeIdJoin, false);
+        try {
+            RowSetRewindable actual2 = exec(op, vars, dsgTDB);
+            expected.reset();
+            same(expected, actual2);
+        } finally {
+            dsgTDB.getContext().unset(SystemTDB.symNodeIdJoin);
+        }
+
+        // Spill threshold set: the general joins are used.
+        dsgTDB.getContext().set(ARQ.spillToDiskThreshold, 0L);
+        try {
+            RowSetRewindable actual3 = exec(op, vars, dsgTDB);
+            expected.reset();
+            same(expected, actual3);
+        } finally {
+            dsgTDB.getContext().unset(ARQ.spillToDiskThreshold);
+        }
+    }
+
+    private static RowSetRewindable exec(Op op, List<Var> vars, DatasetGraph dsg) {
+        QueryIterator qIter = Algebra.exec(op, dsg);
+        return RowSet.create(qIter, vars).rewindable();
+    }
+
+    private static void same(RowSetRewindable rs1, RowSetRewindable rs2) {
+        boolean b = ResultSetCompare.equalsByTerm(rs1, rs2);
+        if ( !b ) {
+            rs1.reset();
+            rs2.reset();
+            RowSetOps.out(rs1);
+            RowSetOps.out(rs2);
+        }
+        assertTrue(b);
+    }
+}